@@ -0,0 +1,151 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * The documents used by the benchmarks.
+ * @author Vincent Zurczak
+ */
+final class BenchmarkDocuments {
+
+	/**
+	 * The approximate size of the generated documents, in characters.
+	 */
+	static final int SIZE = 1024 * 1024;
+
+
+	/**
+	 * Private constructor.
+	 */
+	private BenchmarkDocuments() {
+		// nothing
+	}
+
+
+	/**
+	 * Creates a document.
+	 * @param name the document name
+	 * <ul>
+	 * 		<li>stackoverflow: the example used by the unit tests</li>
+	 * 		<li>attributes: a configuration file with a lot of attributes</li>
+	 * 		<li>comments: comments and CDATA sections</li>
+	 * 		<li>text: a single and huge text node</li>
+	 * 		<li>malformed: invalid mark-ups, attributes and values</li>
+	 * </ul>
+	 *
+	 * @return a non-null string
+	 * @throws IOException if the document could not be loaded
+	 */
+	static String create( String name ) throws IOException {
+
+		String result;
+		if( "stackoverflow".equals( name ))
+			result = loadResource( "/StackOverflowExample.xml" );
+		else if( "attributes".equals( name ))
+			result = repeat( "<configuration>\n", "\t<property name=\"server.port\" value=\"8080\" scope='global' override = \"false\" />\n", "</configuration>" );
+		else if( "comments".equals( name ))
+			result = repeat( "<root>\n", "\t<!-- A comment about the next element -->\n\t<script><![CDATA[ if( a < b && c > d ) { run(); } ]]></script>\n", "</root>" );
+		else if( "text".equals( name ))
+			result = repeat( "<text>", "Some text content that goes on and on, without any mark-up. ", "</text>" );
+		else if( "malformed".equals( name ))
+			result = repeat( "<?xml version=\"1.0\">\n", "<a b=\"c\" <d e='f> g </ >< h=i \"j\" / > -- ]]> <\n", "" );
+		else
+			throw new IllegalArgumentException( "Unknown document: " + name );
+
+		return result;
+	}
+
+
+	/**
+	 * Creates a message, as received by an ingestion pipeline.
+	 * @param size the approximate size of the message, in characters
+	 * @return a non-null string
+	 */
+	static String createMessage( int size ) {
+		return repeat( "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<message id=\"42\">\n",
+				"\t<entry key=\"sensor.value\" unit='C'>21.5</entry>\n\t<!-- sampled -->\n", "</message>", size );
+	}
+
+
+	/**
+	 * Creates a document made up of indented text nodes (every text node starts with white spaces).
+	 * @param size the approximate size of the document, in characters
+	 * @return a non-null string
+	 */
+	static String createIndentedText( int size ) {
+		return repeat( "<root>\n", "\t<item>\n\t\tSome text content\n\t</item>\n", "</root>", size );
+	}
+
+
+	/**
+	 * Builds a document by repeating a pattern.
+	 * @param prefix the beginning of the document
+	 * @param pattern the pattern to repeat
+	 * @param suffix the end of the document
+	 * @return a non-null string
+	 */
+	private static String repeat( String prefix, String pattern, String suffix ) {
+		return repeat( prefix, pattern, suffix, SIZE );
+	}
+
+
+	/**
+	 * Builds a document by repeating a pattern.
+	 * @param prefix the beginning of the document
+	 * @param pattern the pattern to repeat
+	 * @param suffix the end of the document
+	 * @param size the approximate size of the document, in characters
+	 * @return a non-null string
+	 */
+	private static String repeat( String prefix, String pattern, String suffix, int size ) {
+
+		StringBuilder sb = new StringBuilder( size + pattern.length() + suffix.length());
+		sb.append( prefix );
+		while( sb.length() < size )
+			sb.append( pattern );
+
+		sb.append( suffix );
+		return sb.toString();
+	}
+
+
+	/**
+	 * Loads a resource from the class path.
+	 * @param path the resource path
+	 * @return the resource content, as a string
+	 * @throws IOException if the resource could not be read
+	 */
+	private static String loadResource( String path ) throws IOException {
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		try( InputStream in = BenchmarkDocuments.class.getResourceAsStream( path )) {
+			byte[] buffer = new byte[ 8192 ];
+			int read;
+			while(( read = in.read( buffer )) > 0 )
+				os.write( buffer, 0, read );
+		}
+
+		return new String( os.toByteArray(), Charset.forName( "UTF-8" ));
+	}
+}
@@ -0,0 +1,278 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+import net.vzurczak.xml.region.analyzer.XmlRegionAnalyzer.LexerEngine;
+
+/**
+ * Benchmarks for {@link XmlRegionAnalyzer}.
+ * <p>
+ * Besides the number of analyses per second, every benchmark reports the
+ * throughput in MB/s (the "megabytes" secondary metric). Run with the GC profiler
+ * to get the allocation rate: <code>mvn verify -P benchmarks</code>.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@State( Scope.Benchmark )
+public class XmlRegionAnalyzerBenchmark {
+
+	@Param({ "stackoverflow", "attributes", "comments", "text", "malformed" })
+	public String document;
+
+	private static final EnumSet<XmlRegionType> MARKUP_ONLY = EnumSet.of( XmlRegionType.MARKUP, XmlRegionType.ATTRIBUTE );
+	private static final EnumSet<XmlRegionType> TEXT_ONLY = EnumSet.of( XmlRegionType.MARKUP_VALUE, XmlRegionType.CDATA );
+
+	private final XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+	private final XmlRegionAnalyzer stateMachine = new XmlRegionAnalyzer( LexerEngine.STATE_MACHINE );
+	private String xml;
+	private byte[] utf8;
+
+
+	/**
+	 * Creates the document.
+	 * @throws IOException
+	 */
+	@Setup
+	public void createDocument() throws IOException {
+		this.xml = BenchmarkDocuments.create( this.document );
+		this.utf8 = this.xml.getBytes( Charset.forName( "UTF-8" ));
+	}
+
+
+	/**
+	 * @param counters the counters
+	 * @return the regions
+	 */
+	@Benchmark
+	public List<XmlRegion> analyzeIntoList( Megabytes counters ) {
+
+		counters.add( this.xml.length());
+		return this.analyzer.analyzeXml( this.xml );
+	}
+
+
+	/**
+	 * @param buffer a reused buffer
+	 * @param counters the counters
+	 * @return the number of regions
+	 */
+	@Benchmark
+	public int analyzeIntoBuffer( Buffer buffer, Megabytes counters ) {
+
+		counters.add( this.xml.length());
+		this.analyzer.analyzeXml( this.xml, buffer.regions );
+		return buffer.regions.size();
+	}
+
+
+	/**
+	 * Only keeps the tags and the attribute names (e.g. to index a document).
+	 * @param buffer a reused buffer
+	 * @param counters the counters
+	 * @return the number of regions
+	 */
+	@Benchmark
+	public int analyzeMarkupOnly( Buffer buffer, Megabytes counters ) {
+
+		counters.add( this.xml.length());
+		buffer.regions.clear();
+		this.analyzer.analyzeXml( this.xml, buffer.regions, MARKUP_ONLY );
+		return buffer.regions.size();
+	}
+
+
+	/**
+	 * Only keeps the text (e.g. for a full-text search).
+	 * @param buffer a reused buffer
+	 * @param counters the counters
+	 * @return the number of regions
+	 */
+	@Benchmark
+	public int analyzeTextOnly( Buffer buffer, Megabytes counters ) {
+
+		counters.add( this.xml.length());
+		buffer.regions.clear();
+		this.analyzer.analyzeXml( this.xml, buffer.regions, TEXT_ONLY );
+		return buffer.regions.size();
+	}
+
+
+	/**
+	 * No region is created: the GC profiler ("gc.alloc.rate.norm") should only report the lexer.
+	 * @param counters the counters
+	 * @return the number of regions
+	 */
+	@Benchmark
+	public int analyzeWithHandler( Megabytes counters ) {
+
+		counters.add( this.xml.length());
+		CountingHandler handler = new CountingHandler();
+		this.analyzer.analyzeXml( this.xml, handler );
+		return handler.count;
+	}
+
+
+	/**
+	 * @param counters the counters
+	 * @return the number of regions
+	 */
+	@Benchmark
+	public int analyzeWithStateMachine( Megabytes counters ) {
+
+		counters.add( this.xml.length());
+		CountingHandler handler = new CountingHandler();
+		this.stateMachine.analyzeXml( this.xml, handler );
+		return handler.count;
+	}
+
+
+	/**
+	 * Analyzes the 8 KB in the middle of the document, like a text editor does for the visible lines.
+	 * @param counters the counters
+	 * @return the number of regions
+	 */
+	@Benchmark
+	public int analyzeVisibleRange( Megabytes counters ) {
+
+		int from = this.xml.length() / 2;
+		int to = Math.min( this.xml.length(), from + 8192 );
+		counters.add( to - from );
+
+		CountingHandler handler = new CountingHandler();
+		this.analyzer.analyzeXmlRange( this.xml, from, to, handler );
+		return handler.count;
+	}
+
+
+	/**
+	 * @param counters the counters
+	 * @return the number of regions
+	 * @throws IOException
+	 */
+	@Benchmark
+	public int analyzeFromReader( Megabytes counters ) throws IOException {
+
+		counters.add( this.xml.length());
+		CountingHandler handler = new CountingHandler();
+		this.analyzer.analyzeXml( new StringReader( this.xml ), handler );
+		return handler.count;
+	}
+
+
+	/**
+	 * @param counters the counters
+	 * @return the number of regions
+	 */
+	@Benchmark
+	public int analyzeUtf8Bytes( Megabytes counters ) {
+
+		counters.add( this.utf8.length );
+		CountingHandler handler = new CountingHandler();
+		this.analyzer.analyzeXml( this.utf8, handler );
+		return handler.count;
+	}
+
+
+	/**
+	 * @param counters the counters
+	 * @return the number of regions
+	 */
+	@Benchmark
+	public int decodeAndAnalyzeUtf8Bytes( Megabytes counters ) {
+
+		counters.add( this.utf8.length );
+		CountingHandler handler = new CountingHandler();
+		this.analyzer.analyzeXml( new String( this.utf8, Charset.forName( "UTF-8" )), handler );
+		return handler.count;
+	}
+
+
+	/**
+	 * A buffer reused by every invocation of a thread.
+	 * @author Vincent Zurczak
+	 */
+	@State( Scope.Thread )
+	public static class Buffer {
+		final XmlRegionBuffer regions = new XmlRegionBuffer();
+	}
+
+
+	/**
+	 * Counts the analyzed megabytes (one character is counted as one byte).
+	 * @author Vincent Zurczak
+	 */
+	@AuxCounters( AuxCounters.Type.OPERATIONS )
+	@State( Scope.Thread )
+	public static class Megabytes {
+		public double megabytes;
+
+
+		/**
+		 * Resets the counters.
+		 */
+		@Setup( Level.Iteration )
+		public void reset() {
+			this.megabytes = 0;
+		}
+
+
+		/**
+		 * @param length a number of analyzed characters or bytes
+		 */
+		void add( int length ) {
+			this.megabytes += length / (1024.0 * 1024.0);
+		}
+	}
+
+
+	/**
+	 * A handler that counts regions.
+	 * @author Vincent Zurczak
+	 */
+	static class CountingHandler implements XmlRegionHandler {
+		int count;
+
+		@Override
+		public void onRegion( XmlRegionType xmlRegionType, long start, long end ) {
+			this.count ++;
+		}
+	}
+}
@@ -0,0 +1,124 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.vzurczak.xml.region.analyzer.XmlRegionAnalyzerBenchmark.Megabytes;
+
+/**
+ * Benchmarks for the analysis of many small documents.
+ * <p>
+ * Every invocation analyzes about 4 MB of messages, of 1, 10 or 100 KB each,
+ * one by one or as a batch (on the default executor).
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@State( Scope.Benchmark )
+public class XmlRegionBatchBenchmark {
+
+	private static final int BATCH_SIZE = 4 * 1024 * 1024;
+
+	@Param({ "1", "10", "100" })
+	public int messageSizeInKb;
+
+	private final List<String> messages = new ArrayList<> ();
+	private int length;
+
+
+	/**
+	 * Creates the messages.
+	 */
+	@Setup
+	public void createMessages() {
+
+		String message = BenchmarkDocuments.createMessage( this.messageSizeInKb * 1024 );
+		for( int i=0; i<BATCH_SIZE / message.length(); i++ ) {
+			this.messages.add( new String( message.toCharArray()));
+			this.length += message.length();
+		}
+	}
+
+
+	/**
+	 * @param counters the counters
+	 * @return the number of regions
+	 */
+	@Benchmark
+	public int analyzeOneByOne( Megabytes counters ) {
+
+		counters.add( this.length );
+		int result = 0;
+		for( String message : this.messages )
+			result += new XmlRegionAnalyzer().analyzeXml( message ).size();
+
+		return result;
+	}
+
+
+	/**
+	 * @param counters the counters
+	 * @return the results
+	 * @throws InterruptedException
+	 */
+	@Benchmark
+	public List<List<XmlRegion>> analyzeBatch( Megabytes counters ) throws InterruptedException {
+
+		counters.add( this.length );
+		return new XmlRegionAnalyzer().analyzeXmlBatch( this.messages );
+	}
+
+
+	/**
+	 * @param counters the counters
+	 * @return the number of regions
+	 * @throws InterruptedException
+	 */
+	@Benchmark
+	public int analyzeBatchWithHandler( Megabytes counters ) throws InterruptedException {
+
+		counters.add( this.length );
+		final AtomicInteger result = new AtomicInteger();
+		new XmlRegionAnalyzer().analyzeXmlBatch( this.messages, new XmlRegionBatchHandler() {
+			@Override
+			public void onDocument( int index, CharSequence xml, XmlRegionBuffer regions ) {
+				result.addAndGet( regions.size());
+			}
+
+		}, XmlRegionBatch.ExecutorHolder.EXECUTOR, XmlRegionBatch.ExecutorHolder.PARALLELISM );
+
+		return result.get();
+	}
+}
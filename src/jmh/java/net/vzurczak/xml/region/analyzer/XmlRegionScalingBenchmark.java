@@ -0,0 +1,75 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Verifies the analysis time grows linearly with the document size.
+ * <p>
+ * The documents are made up of indented text nodes: every text node starts
+ * with white spaces that must be merged into the mark-up value. The 50 MB
+ * document is 10 times bigger than the 5 MB one: its average analysis time
+ * should be about 10 times longer (a quadratic analysis would take 100 times longer).
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@State( Scope.Benchmark )
+public class XmlRegionScalingBenchmark {
+
+	@Param({ "5", "50" })
+	public int documentSizeInMb;
+
+	private final XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+	private final XmlRegionBuffer buffer = new XmlRegionBuffer();
+	private String xml;
+
+
+	/**
+	 * Creates the document.
+	 */
+	@Setup
+	public void createDocument() {
+		this.xml = BenchmarkDocuments.createIndentedText( this.documentSizeInMb * 1024 * 1024 );
+	}
+
+
+	/**
+	 * @return the number of regions
+	 */
+	@Benchmark
+	public int analyzeIndentedTextNodes() {
+
+		this.analyzer.analyzeXml( this.xml, this.buffer );
+		return this.buffer.size();
+	}
+}
@@ -0,0 +1,113 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.vzurczak.xml.region.analyzer.XmlRegionAnalyzerBenchmark.CountingHandler;
+import net.vzurczak.xml.region.analyzer.XmlRegionAnalyzerBenchmark.Megabytes;
+
+/**
+ * Compares the scalar and the vector scanners.
+ * <p>
+ * Arrays of characters (as read from streams) and UTF-8 bytes are analyzed.
+ * Strings are not, since they are always searched with {@link String#indexOf(int, int)}.
+ * The vector scanner requires Java 17 or later.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@State( Scope.Benchmark )
+@Fork( jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class XmlRegionScannerBenchmark {
+
+	@Param({ "text", "comments", "stackoverflow" })
+	public String document;
+
+	@Param({ "scalar", "vector" })
+	public String scanner;
+
+	private XmlRegionScanner xmlRegionScanner;
+	private char[] chars;
+	private byte[] utf8;
+
+
+	/**
+	 * Creates the document and the scanner.
+	 * @throws IOException
+	 */
+	@Setup
+	public void setup() throws IOException {
+
+		String xml = BenchmarkDocuments.create( this.document );
+		this.chars = xml.toCharArray();
+		this.utf8 = xml.getBytes( Charset.forName( "UTF-8" ));
+
+		if( "scalar".equals( this.scanner ))
+			this.xmlRegionScanner = new XmlRegionScanner();
+		else if( XmlRegionScanner.DEFAULT.getClass() != XmlRegionScanner.class )
+			this.xmlRegionScanner = XmlRegionScanner.DEFAULT;
+		else
+			throw new IllegalStateException( "The vector scanner is not available." );
+	}
+
+
+	/**
+	 * @param counters the counters
+	 * @return the number of regions
+	 */
+	@Benchmark
+	public int analyzeChars( Megabytes counters ) {
+
+		counters.add( this.chars.length );
+		CountingHandler handler = new CountingHandler();
+		new XmlRegionLexer( handler, this.xmlRegionScanner ).analyze( CharBuffer.wrap( this.chars ));
+		return handler.count;
+	}
+
+
+	/**
+	 * @param counters the counters
+	 * @return the number of regions
+	 */
+	@Benchmark
+	public int analyzeUtf8Bytes( Megabytes counters ) {
+
+		counters.add( this.utf8.length );
+		CountingHandler handler = new CountingHandler();
+		new XmlRegionLexer( handler, this.xmlRegionScanner ).analyze( new Utf8CharSequence( ByteBuffer.wrap( this.utf8 ), 0, this.utf8.length ));
+		return handler.count;
+	}
+}
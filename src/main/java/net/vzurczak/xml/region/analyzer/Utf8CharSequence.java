@@ -0,0 +1,205 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A view of UTF-8 bytes as a sequence of characters, with one character per byte.
+ * <p>
+ * This allows the lexer to analyze bytes directly, without decoding them.
+ * Everything the lexer looks for is made up of ASCII characters, which are
+ * single bytes in UTF-8. ASCII bytes are returned as they are.
+ * </p>
+ * <p>
+ * Other bytes belong to multi-byte characters. If this character is a white space
+ * (e.g. U+2028 or U+3000), all its bytes are returned as this white space. Otherwise,
+ * they are returned as U+FFFD. This way, the regions found in the bytes are exactly
+ * those that would be found in the decoded text.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+final class Utf8CharSequence implements CharSequence {
+
+	private static final char OTHER = '\uFFFD';
+
+	private final ByteBuffer bytes;
+	private final byte[] array;
+	private final int offset, length, arrayOffset;
+
+
+	/**
+	 * Constructor.
+	 * <p>
+	 * The bytes located before and after the sequence are used to decode the characters
+	 * that cross its boundaries.
+	 * </p>
+	 *
+	 * @param bytes the bytes (only absolute methods are used)
+	 * @param offset the index of the first byte of the sequence
+	 * @param length the number of bytes of the sequence
+	 */
+	Utf8CharSequence( ByteBuffer bytes, int offset, int length ) {
+		this.bytes = bytes;
+		this.offset = offset;
+		this.length = length;
+
+		// Heap buffers are read directly (much faster than ByteBuffer#get)
+		boolean heap = bytes.hasArray();
+		this.array = heap ? bytes.array() : null;
+		this.arrayOffset = heap ? bytes.arrayOffset() + offset : 0;
+	}
+
+
+	/**
+	 * @return the array that holds the bytes, or null if the buffer is not backed by an array
+	 */
+	byte[] array() {
+		return this.array;
+	}
+
+
+	/**
+	 * @return the index of the first byte of the sequence in {@link #array()}
+	 */
+	int arrayOffset() {
+		return this.arrayOffset;
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.CharSequence
+	 * #length()
+	 */
+	@Override
+	public int length() {
+		return this.length;
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.CharSequence
+	 * #charAt(int)
+	 */
+	@Override
+	public char charAt( int index ) {
+
+		if( index < 0 || index >= this.length )
+			throw new IndexOutOfBoundsException( "Index: " + index + ", Length: " + this.length );
+
+		byte b = this.array != null ? this.array[ this.arrayOffset + index ] : this.bytes.get( this.offset + index );
+		return b >= 0 ? (char) b : decodeWhitespace( this.offset + index );
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.CharSequence
+	 * #subSequence(int, int)
+	 */
+	@Override
+	public CharSequence subSequence( int start, int end ) {
+
+		if( start < 0 || start > end || end > this.length )
+			throw new IndexOutOfBoundsException( "Range: [" + start + ", " + end + "[, Length: " + this.length );
+
+		return new Utf8CharSequence( this.bytes, this.offset + start, end - start );
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object
+	 * #toString()
+	 */
+	@Override
+	public String toString() {
+
+		StringBuilder sb = new StringBuilder( this.length );
+		for( int i=0; i<this.length; i++ )
+			sb.append( charAt( i ));
+
+		return sb.toString();
+	}
+
+
+	/**
+	 * Decodes the character a byte belongs to, if it is a white space.
+	 * @param index the absolute index of a byte that is not an ASCII character
+	 * @return the white space, or U+FFFD if this character is not a white space (or is invalid)
+	 */
+	private char decodeWhitespace( int index ) {
+
+		// Find the first byte of the character
+		int first = index;
+		while( first > 0 && first > index - 3 && isContinuation( this.bytes.get( first )))
+			first --;
+
+		int lead = this.bytes.get( first ) & 0xFF;
+		int count, codePoint, min;
+		if( lead >= 0xF0 ) {
+			count = 4;
+			codePoint = lead & 0x07;
+			min = 0x10000;
+
+		} else if( lead >= 0xE0 ) {
+			count = 3;
+			codePoint = lead & 0x0F;
+			min = 0x800;
+
+		} else if( lead >= 0xC0 ) {
+			count = 2;
+			codePoint = lead & 0x1F;
+			min = 0x80;
+
+		} else {
+			return OTHER;
+		}
+
+		// Decode it (invalid sequences are decoded as U+FFFD, they are not white spaces)
+		if( first + count <= index || first + count > this.bytes.limit())
+			return OTHER;
+
+		for( int i=first + 1; i<first + count; i++ ) {
+			byte b = this.bytes.get( i );
+			if( ! isContinuation( b ))
+				return OTHER;
+
+			codePoint = codePoint << 6 | b & 0x3F;
+		}
+
+		boolean whitespace = codePoint >= min
+				&& codePoint <= Character.MAX_VALUE
+				&& Character.isWhitespace( codePoint );
+
+		return whitespace ? (char) codePoint : OTHER;
+	}
+
+
+	/**
+	 * @param b a byte
+	 * @return true if it is a continuation byte (10xxxxxx)
+	 */
+	private static boolean isContinuation( byte b ) {
+		return (b & 0xC0) == 0x80;
+	}
+}
@@ -0,0 +1,140 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * The lexical context between two regions.
+ * <p>
+ * It tells which regions may start here. It only depends on the last region
+ * that is not made up of white spaces: lexers update it every time they find a region,
+ * instead of looking back at the regions they found.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ * @version 1.0 (tag version)
+ */
+enum XmlLexicalContext {
+
+	/**
+	 * The beginning of the document: anything may follow.
+	 */
+	START( true, true, true ),
+
+	/**
+	 * After a mark-up name that does not end with '&gt;': attributes may follow.
+	 */
+	IN_TAG( true, false, false ),
+
+	/**
+	 * After an attribute name: its value may follow.
+	 */
+	AFTER_ATTRIBUTE( false, true, false ),
+
+	/**
+	 * After an attribute value: other attributes may follow.
+	 */
+	AFTER_ATTRIBUTE_VALUE( true, false, false ),
+
+	/**
+	 * After a complete mark-up or comment: a mark-up value may follow.
+	 */
+	CONTENT( false, false, true ),
+
+	/**
+	 * Anywhere else: only mark-ups, comments, etc, may follow.
+	 */
+	OTHER( false, false, false );
+
+
+	private final boolean attribute, attributeValue, markupValue;
+
+
+	/**
+	 * Constructor.
+	 * @param attribute true if an attribute may follow
+	 * @param attributeValue true if an attribute value may follow
+	 * @param markupValue true if a mark-up value may follow
+	 */
+	XmlLexicalContext( boolean attribute, boolean attributeValue, boolean markupValue ) {
+		this.attribute = attribute;
+		this.attributeValue = attributeValue;
+		this.markupValue = markupValue;
+	}
+
+
+	/**
+	 * @return true if an attribute may start in this context
+	 */
+	boolean allowsAttribute() {
+		return this.attribute;
+	}
+
+
+	/**
+	 * @return true if an attribute value may start in this context
+	 */
+	boolean allowsAttributeValue() {
+		return this.attributeValue;
+	}
+
+
+	/**
+	 * @return true if a mark-up value may start in this context
+	 */
+	boolean allowsMarkupValue() {
+		return this.markupValue;
+	}
+
+
+	/**
+	 * Finds the context after a region.
+	 * @param xmlRegionType the type of a region that is not made up of white spaces
+	 * @param lastChar the last character of this region
+	 * @return a non-null context
+	 */
+	static XmlLexicalContext after( XmlRegionType xmlRegionType, char lastChar ) {
+
+		XmlLexicalContext result;
+		switch( xmlRegionType ) {
+		case MARKUP:
+			result = lastChar == '>' ? CONTENT : IN_TAG;
+			break;
+
+		case COMMENT:
+			result = lastChar == '>' ? CONTENT : OTHER;
+			break;
+
+		case ATTRIBUTE:
+			result = AFTER_ATTRIBUTE;
+			break;
+
+		case ATTRIBUTE_VALUE:
+			result = AFTER_ATTRIBUTE_VALUE;
+			break;
+
+		default:
+			result = OTHER;
+			break;
+		}
+
+		return result;
+	}
+}
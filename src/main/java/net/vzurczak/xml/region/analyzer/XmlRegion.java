@@ -23,11 +23,17 @@ package net.vzurczak.xml.region.analyzer;
  * <p>
  * A XML region is limited in the range [start, end[
  * </p>
+ * <p>
+ * Regions are immutable: they can be shared, cached and published to other threads
+ * without copies. Holding many of them is not cheap though (one object per token, even
+ * for '&gt;' or '/&gt;'). To keep the regions of a document for a long time,
+ * prefer a {@link XmlRegionBuffer}, which stores them in arrays of primitives.
+ * </p>
  *
  * @author Vincent Zurczak
  * @version 1.0 (tag version)
  */
-public class XmlRegion {
+public final class XmlRegion {
 
 	public enum XmlRegionType {
 		INSTRUCTION,
@@ -43,17 +49,19 @@ public class XmlRegion {
 
 	private final XmlRegionType xmlRegionType;
 	private final int start;
-	private int end;
+	private final int end;
 
 
 	/**
-	 * Constructor.
+	 * Constructor for an empty region.
 	 * @param xmlRegionType
 	 * @param start
+	 * @deprecated since 2.0, regions are immutable and their end cannot be set afterwards.
+	 * Use {@link #XmlRegion(XmlRegionType, int, int)} instead.
 	 */
+	@Deprecated
 	public XmlRegion( XmlRegionType xmlRegionType, int start ) {
-		this.xmlRegionType = xmlRegionType;
-		this.start = start;
+		this( xmlRegionType, start, start );
 	}
 
 
@@ -64,7 +72,8 @@ public class XmlRegion {
 	 * @param end
 	 */
 	public XmlRegion( XmlRegionType xmlRegionType, int start, int end ) {
-		this( xmlRegionType, start );
+		this.xmlRegionType = xmlRegionType;
+		this.start = start;
 		this.end = end;
 	}
 
@@ -77,14 +86,6 @@ public class XmlRegion {
 	}
 
 
-	/**
-	 * @param end the end to set
-	 */
-	public void setEnd(int end) {
-		this.end = end;
-	}
-
-
 	/**
 	 * @return the xmlRegionType
 	 */
@@ -101,6 +102,38 @@ public class XmlRegion {
 	}
 
 
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object
+	 * #equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals( Object obj ) {
+
+		if( this == obj )
+			return true;
+
+		if( ! ( obj instanceof XmlRegion ))
+			return false;
+
+		XmlRegion other = (XmlRegion) obj;
+		return other.xmlRegionType == this.xmlRegionType
+				&& other.start == this.start
+				&& other.end == this.end;
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object
+	 * #hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return (this.start * 31 + this.end) * 31 + this.xmlRegionType.ordinal();
+	}
+
+
 	/*
 	 * (non-Javadoc)
 	 * @see java.lang.Object
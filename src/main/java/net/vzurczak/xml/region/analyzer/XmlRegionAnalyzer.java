@@ -18,420 +18,670 @@
 
 package net.vzurczak.xml.region.analyzer;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
 
 /**
  * A class that builds style ranges from a XML input.
+ * <p>
+ * This class is stateless: the state of an analysis is kept in a context
+ * created for every call. A single instance can therefore be shared by
+ * several threads.
+ * </p>
+ *
  * @author Vincent Zurczak
  * @version 1.0 (tag version)
  */
 public class XmlRegionAnalyzer {
 
-	private int offset;
+	/**
+	 * The default size of the buffer used to analyze streams.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	/**
+	 * The default size of the segments mapped in memory to analyze files.
+	 */
+	public static final int DEFAULT_SEGMENT_SIZE = 256 * 1024 * 1024;
+
+	private static final int MIN_BUFFER_SIZE = XmlRegionStreamLexer.MIN_BUFFER_SIZE;
+	private static final int MAX_SEGMENT_SIZE = Integer.MAX_VALUE - 8;
+
+	/**
+	 * The engines that can find regions in a whole text.
+	 * <p>
+	 * Both engines find exactly the same regions. Streams, files, parallel and
+	 * incremental analyses always use {@link #SCANNER}.
+	 * </p>
+	 */
+	public enum LexerEngine {
+
+		/**
+		 * The default engine: it looks for delimiters and skips the characters in between.
+		 */
+		SCANNER,
+
+		/**
+		 * A table-driven state machine that reads every character once.
+		 */
+		STATE_MACHINE;
+	}
+
+	private final LexerEngine engine;
+	private final XmlRegionMetricsListener metricsListener;
+
+
+	/**
+	 * Constructor.
+	 */
+	public XmlRegionAnalyzer() {
+		this( LexerEngine.SCANNER );
+	}
+
+
+	/**
+	 * Constructor.
+	 * @param engine the engine used to analyze whole texts (not null)
+	 */
+	public XmlRegionAnalyzer( LexerEngine engine ) {
+		this( engine, null );
+	}
+
+
+	/**
+	 * Constructor.
+	 * <p>
+	 * When a listener is set, complete analyses are measured: the number of regions
+	 * by type, the size of the largest regions, the size of the document and the duration.
+	 * This concerns the analyses of texts, bytes, files and streams (not parallel,
+	 * incremental or range analyses). Without a listener, nothing is measured
+	 * (unless a profiler records the Flight Recorder events of the analyses, on Java 17 and later).
+	 * </p>
+	 *
+	 * @param engine the engine used to analyze whole texts (not null)
+	 * @param metricsListener a listener to notify of the measures of every analysis (can be null)
+	 */
+	public XmlRegionAnalyzer( LexerEngine engine, XmlRegionMetricsListener metricsListener ) {
+		if( engine == null )
+			throw new IllegalArgumentException( "The engine cannot be null." );
+
+		this.engine = engine;
+		this.metricsListener = metricsListener;
+	}
 
 
 	/**
 	 * Analyzes a XML document.
+	 * <p>
+	 * Since version 2.0, the result is a read-only view over a {@link XmlRegionBuffer}
+	 * (see {@link XmlRegionBuffer#asList()}), whose elements are created when they are read.
+	 * It was a modifiable {@link java.util.ArrayList} before: callers that modify the result
+	 * must copy it first (<code>new ArrayList&lt;&gt;( analyzer.analyzeXml( xml ))</code>).
+	 * </p>
+	 *
 	 * @param xml the XML text (may be an invalid XML document)
-	 * @return a non-null list of XML positions
+	 * @return a non-null and read-only list of XML positions
 	 */
 	public List<XmlRegion> analyzeXml( String xml ) {
 
-		this.offset = 0;
-		List<XmlRegion> positions = new ArrayList<> ();
-		while( this.offset < xml.length()) {
+		XmlRegionBuffer positions = new XmlRegionBuffer( xml.length() / 8 );
+		analyzeXml( xml, positions );
+		return positions.asList();
+	}
 
-			// White spaces
-			analyzeWhitespaces( xml, positions );
-			if( this.offset >= xml.length())
-				break;
 
-			// "<" can be several things
-			char c = xml.charAt( this.offset );
-			if( c == '<' ) {
-				if( analyzeInstruction( xml, positions ))
-					continue;
-				if( analyzeComment( xml, positions ))
-					continue;
-				if( analyzeMarkup( xml, positions ))
-					continue;
-				if( analyzeCData( xml, positions ))
-					continue;
-
-				positions.add( new XmlRegion( XmlRegionType.UNEXPECTED, this.offset, xml.length()));
-				break;
-			}
+	/**
+	 * Analyzes a XML document and stores the regions in a buffer.
+	 * <p>
+	 * The buffer is cleared first. Reusing the same buffer for several documents
+	 * avoids allocating new arrays for every analysis.
+	 * </p>
+	 *
+	 * @param xml the XML text (may be an invalid XML document)
+	 * @param positions the buffer to fill in
+	 */
+	public void analyzeXml( String xml, XmlRegionBuffer positions ) {
 
-			// "/" and "/>" can only indicate a mark-up
-			else if( c == '/' && xml.charAt( this.offset+1 ) == '>' || c == '>' ) {
-				if( analyzeMarkup( xml, positions ))
-					continue;
+		positions.clear();
+		analyzeXml( xml, (XmlRegionHandler) positions );
+	}
 
-				positions.add( new XmlRegion( XmlRegionType.UNEXPECTED, this.offset, xml.length()));
-				break;
-			}
 
-			// Other things can be...
-			if( analyzeAttribute( xml, positions ))
-				continue;
-			if( analyzeAttributeValue( xml, positions ))
-				continue;
-			if( analyzeMarkupValue( xml, positions ))
-				continue;
+	/**
+	 * Analyzes a XML document and notifies a handler for every region.
+	 * <p>
+	 * The handler is invoked directly by the lexer, in the order of the document,
+	 * as soon as a region is complete. No object is created per region, which makes
+	 * this method the cheapest way to consume regions that only need to be seen once.
+	 * </p>
+	 *
+	 * @param xml the XML text (may be an invalid XML document)
+	 * @param handler the handler to notify when a region is found
+	 */
+	public void analyzeXml( CharSequence xml, XmlRegionHandler handler ) {
 
-			positions.add( new XmlRegion( XmlRegionType.UNEXPECTED, this.offset, xml.length()));
-			break;
-		}
+		XmlRegionMeter meter = XmlRegionMeter.create( handler, this.metricsListener );
+		XmlRegionHandler actualHandler = meter == null ? handler : meter;
+		if( this.engine == LexerEngine.STATE_MACHINE )
+			new XmlRegionStateMachine( actualHandler ).analyze( xml );
+		else
+			new XmlRegionLexer( actualHandler ).analyze( xml );
 
-		return positions;
+		if( meter != null )
+			meter.publish();
 	}
 
 
 	/**
-	 * Tries to analyze a XML instruction.
-	 * @param xml the XML text
-	 * @param positions the positions already found
-	 * @return true if it recognized a XML instruction
+	 * Analyzes a XML document and only keeps some types of regions.
+	 * <p>
+	 * The other regions are dropped as soon as they are found: they are neither stored
+	 * nor returned. This is cheaper than filtering the list of all the regions, e.g. to only keep
+	 * {@link XmlRegionType#MARKUP} and {@link XmlRegionType#ATTRIBUTE} regions.
+	 * Like {@link #analyzeXml(String)}, the result is read-only.
+	 * </p>
+	 *
+	 * @param xml the XML text (may be an invalid XML document)
+	 * @param types the types of the regions to keep (not null)
+	 * @return a non-null and read-only list of XML positions
 	 */
-	boolean analyzeInstruction( String xml, List<XmlRegion> positions ) {
-
-		boolean result = false;
-		int newPos = this.offset;
-		if( newPos < xml.length()
-				&& xml.charAt( newPos ) == '<'
-				&& ++ newPos < xml.length()
-				&& xml.charAt( newPos ) == '?' ) {
-
-			while( newPos > -1 && ++ newPos < xml.length()
-					&& xml.charAt( newPos ) != '>' )
-				newPos = xml.indexOf( '?', newPos );
-
-			if( newPos > -1 && xml.charAt( newPos ) == '>' ) {
-				positions.add( new XmlRegion( XmlRegionType.INSTRUCTION, this.offset, newPos + 1 ));
-				this.offset = newPos + 1;
-				result = true;
-			}
-		}
+	public List<XmlRegion> analyzeXml( String xml, EnumSet<XmlRegionType> types ) {
 
-		return result;
+		XmlRegionBuffer positions = new XmlRegionBuffer( xml.length() / 8 );
+		analyzeXml( xml, positions, types );
+		return positions.asList();
 	}
 
 
 	/**
-	 * Tries to analyze a XML comment.
-	 * @param xml the XML text
-	 * @param positions the positions already found
-	 * @return true if it recognized a XML instruction
+	 * Analyzes a XML document and notifies a handler for some types of regions.
+	 * <p>
+	 * The document is analyzed entirely, but the handler is not invoked for the other regions.
+	 * </p>
+	 *
+	 * @param xml the XML text (may be an invalid XML document)
+	 * @param handler the handler to notify when a region of a wanted type is found
+	 * @param types the types of the regions to notify (not null)
 	 */
-	boolean analyzeComment( String xml, List<XmlRegion> positions ) {
-
-		boolean result = false;
-		int newPos = this.offset;
-		if( xml.charAt( newPos ) == '<'
-				&& ++ newPos < xml.length()
-				&& xml.charAt( newPos ) == '!'
-				&& ++ newPos < xml.length()
-				&& xml.charAt( newPos ) == '-'
-				&& ++ newPos < xml.length()
-				&& xml.charAt( newPos ) == '-' ) {
-
-			int seq = 0;
-			while( seq != 3
-					&& ++ newPos < xml.length()) {
-				char c = xml.charAt( newPos );
-				seq = c == '-' && seq < 2 || c == '>' && seq == 2 ? seq + 1 : 0;
-			}
+	public void analyzeXml( CharSequence xml, XmlRegionHandler handler, EnumSet<XmlRegionType> types ) {
+		analyzeXml( xml, XmlRegionFilter.create( handler, types ));
+	}
 
-			if( seq == 3 )
-				newPos ++;
 
-			positions.add( new XmlRegion( XmlRegionType.COMMENT, this.offset, newPos ));
-			this.offset = newPos;
-			result = true;
-		}
+	/**
+	 * Creates an iterable over the regions of a XML document.
+	 * <p>
+	 * The document is analyzed lazily: the lexer only looks for the next region when
+	 * {@link Iterator#hasNext()} or {@link Iterator#next()} is invoked. Callers that stop early
+	 * (e.g. once the root element was found) do not pay for the rest of the document.
+	 * Every iterator analyzes the document again. The document is analyzed by the
+	 * {@link LexerEngine#SCANNER} engine, whatever the engine of this analyzer, and the
+	 * iteration is not measured.
+	 * </p>
+	 * <p>
+	 * On Java 8 and later, the regions can also be streamed from the spliterator of the iterable.
+	 * On Java 17 and later, this spliterator is ordered, non-null and immutable, and it is as lazy
+	 * as the iterators.
+	 * </p>
+	 *
+	 * @param xml the XML text (may be an invalid XML document), which must not change during the iteration
+	 * @return a non-null iterable, whose iterators do not support {@link Iterator#remove()}
+	 */
+	public Iterable<XmlRegion> iterateXml( CharSequence xml ) {
+		return XmlRegionIterable.create( xml );
+	}
+
+
+	/**
+	 * Analyzes a XML document, in the limits of a budget.
+	 * <p>
+	 * The analysis stops between two regions, when the budget is exhausted (too many
+	 * characters analyzed, deadline passed or cancellation). The regions notified until then
+	 * are the same than those of a complete analysis. The document is analyzed by
+	 * the {@link LexerEngine#SCANNER} engine, whatever the engine of this analyzer.
+	 * </p>
+	 *
+	 * @param xml the XML text (may be an invalid XML document)
+	 * @param handler the handler to notify when a region is found
+	 * @param budget the budget of the analysis
+	 * @return true if the whole document was analyzed, false if the result is truncated
+	 */
+	public boolean analyzeXml( CharSequence xml, XmlRegionHandler handler, XmlRegionBudget budget ) {
+
+		XmlRegionMeter meter = XmlRegionMeter.create( handler, this.metricsListener );
+		boolean result = XmlRegionBudgetGuard.analyze( xml, meter == null ? handler : meter, budget );
+		if( meter != null )
+			meter.publish();
 
 		return result;
 	}
 
 
 	/**
-	 * Tries to analyze a XML mark-up.
-	 * @param xml the XML text
-	 * @param positions the positions already found
-	 * @return true if it recognized a XML instruction
+	 * Analyzes a XML document encoded in UTF-8.
+	 * <p>
+	 * Equivalent to <code>analyzeXml( ByteBuffer.wrap( utf8 ), handler )</code>.
+	 * </p>
+	 *
+	 * @param utf8 the XML document, encoded in UTF-8 (may be an invalid XML document)
+	 * @param handler the handler to notify when a region is found (with byte positions)
 	 */
-	boolean analyzeMarkup( String xml, List<XmlRegion> positions ) {
+	public void analyzeXml( byte[] utf8, XmlRegionHandler handler ) {
+		analyzeXml( ByteBuffer.wrap( utf8 ), handler );
+	}
 
-		int newPos = this.offset;
-		boolean result = false;
 
+	/**
+	 * Analyzes a XML document encoded in UTF-8, without decoding it.
+	 * <p>
+	 * The bytes are analyzed directly. Regions are notified with byte positions,
+	 * relative to the position of the buffer. They are the same than the regions of the
+	 * decoded text. To get character positions, wrap the handler in a {@link XmlRegionCharPositionHandler}.
+	 * </p>
+	 *
+	 * @param utf8 the XML document, encoded in UTF-8, from the position to the limit of the buffer
+	 * (may be an invalid XML document, the position of the buffer is not modified)
+	 * @param handler the handler to notify when a region is found (with byte positions)
+	 */
+	public void analyzeXml( ByteBuffer utf8, XmlRegionHandler handler ) {
+		analyzeXml( new Utf8CharSequence( utf8.slice(), 0, utf8.remaining()), handler );
+	}
 
-		// "<..."
-		if( xml.charAt( newPos ) == '<' ) {
 
-			// Do not process a CData section or a comment as a mark-up
-			if( newPos + 1 < xml.length()
-					&& xml.charAt( newPos + 1 ) == '!' )
-				return false;
+	/**
+	 * Analyzes a XML file encoded in UTF-8, by mapping it in memory.
+	 * <p>
+	 * Equivalent to <code>analyzeXml( channel, handler, DEFAULT_SEGMENT_SIZE )</code>
+	 * with a channel opened for this file.
+	 * </p>
+	 *
+	 * @param path the path of a XML file encoded in UTF-8 (may be an invalid XML document)
+	 * @param handler the handler to notify when a region is found (with byte positions)
+	 * @throws IOException if the file could not be read
+	 */
+	public void analyzeXml( Path path, XmlRegionHandler handler ) throws IOException {
 
-			// Mark-up name
-			char c = '!';
-			while( newPos < xml.length()
-					&& (c = xml.charAt( newPos)) != '>'
-					&& ! Character.isWhitespace( c ))
-				newPos ++;
+		try( FileChannel channel = FileChannel.open( path, StandardOpenOption.READ )) {
+			analyzeXml( channel, handler, DEFAULT_SEGMENT_SIZE );
+		}
+	}
 
-			if( c == '>' )
-				newPos ++;
 
-			positions.add( new XmlRegion( XmlRegionType.MARKUP, this.offset, newPos ));
-			this.offset = newPos;
-			result = true;
-		}
+	/**
+	 * Analyzes a XML file encoded in UTF-8, by mapping it in memory.
+	 * <p>
+	 * The file is mapped segment by segment and the bytes are analyzed directly
+	 * from the mapping: neither the file nor its characters are copied in the heap.
+	 * Files bigger than 2 GB are supported: regions are notified with byte positions,
+	 * counted from the beginning of the file, and may exceed the range of an integer.
+	 * </p>
+	 * <p>
+	 * Just like with streams, a region can be much bigger than a segment.
+	 * An instruction that is never closed is the only exception: it must fit in a segment
+	 * (of at most 2 GB) to be read again as a mark-up.
+	 * </p>
+	 *
+	 * @param channel a channel for a XML file encoded in UTF-8 (may be an invalid XML document), not closed by this method
+	 * @param handler the handler to notify when a region is found (with byte positions)
+	 * @param segmentSize the size of the segments mapped in memory, in bytes
+	 * @throws IOException if the file could not be read
+	 * @see #analyzeXml(ByteBuffer, XmlRegionHandler)
+	 */
+	public void analyzeXml( FileChannel channel, XmlRegionHandler handler, int segmentSize ) throws IOException {
+
+		XmlRegionMeter meter = XmlRegionMeter.create( handler, this.metricsListener );
+		XmlRegionLexer lexer = new XmlRegionLexer( meter == null ? handler : meter );
+		long size = channel.size();
+		long windowStart = 0;
+		int windowSize = Math.max( segmentSize, MIN_BUFFER_SIZE );
+		for( ;; ) {
+
+			// Map a few more bytes before and after, to decode the characters that cross the boundaries
+			int length = (int) Math.min( windowSize, size - windowStart );
+			boolean eof = windowStart + length == size;
+			long mapStart = Math.max( 0, windowStart - 3 );
+			long mapEnd = Math.min( size, windowStart + length + 3 );
+			MappedByteBuffer segment = channel.map( MapMode.READ_ONLY, mapStart, mapEnd - mapStart );
+
+			lexer.setWindow( new Utf8CharSequence( segment, (int) (windowStart - mapStart), length ));
+			lexer.update( length, eof );
+			lexer.analyze();
+			if( eof )
+				break;
 
-		// "/>"
-		else if( xml.charAt( newPos ) == '/'
-				&& ++ newPos < xml.length()
-				&& xml.charAt( newPos ) == '>' ) {
+			// Only instructions can retain a whole segment
+			int retained = lexer.getRetainedIndex();
+			if( retained == 0 ) {
+				if( windowSize == MAX_SEGMENT_SIZE )
+					throw new IOException( "An instruction is too big to be analyzed (more than 2 GB)." );
 
-			positions.add( new XmlRegion( XmlRegionType.MARKUP, this.offset, ++ newPos ));
-			this.offset = newPos;
-			result = true;
-		}
+				windowSize = (int) Math.min( 2L * windowSize, MAX_SEGMENT_SIZE );
+			}
 
-		// "attributes... >"
-		else if( xml.charAt( newPos ) == '>' ) {
-			positions.add( new XmlRegion( XmlRegionType.MARKUP, this.offset, ++ newPos ));
-			this.offset = newPos;
-			result = true;
+			lexer.discard( retained );
+			windowStart += retained;
 		}
 
-		return result;
+		if( meter != null )
+			meter.publish();
 	}
 
 
 	/**
-	 * Tries to analyze a XML attribute.
-	 * @param xml the XML text
-	 * @param positions the positions already found
-	 * @return true if it recognized a XML instruction
+	 * Analyzes a XML document in parallel and stores the regions in a buffer.
+	 * <p>
+	 * Equivalent to <code>analyzeXmlInParallel( xml, positions, pool )</code> with
+	 * a pool shared by all the analyzers, whose parallelism is the number of processors.
+	 * </p>
+	 *
+	 * @param xml the XML text (may be an invalid XML document)
+	 * @param positions the buffer to fill in
 	 */
-	boolean analyzeAttribute( String xml, List<XmlRegion> positions ) {
+	public void analyzeXmlInParallel( String xml, XmlRegionBuffer positions ) {
 
-		// An attribute value follows a mark-up
-		for( int i=positions.size() - 1; i >=0; i-- ) {
-			XmlRegion xr = positions.get( i );
-			if( xr.getXmlRegionType() == XmlRegionType.WHITESPACE )
-				continue;
+		positions.clear();
+		analyzeXmlInParallel( xml, positions, PoolHolder.POOL );
+	}
 
-			if( xr.getXmlRegionType() == XmlRegionType.ATTRIBUTE_VALUE )
-				break;
 
-			if( xr.getXmlRegionType() == XmlRegionType.MARKUP ) {
-				char c = xml.charAt( xr.getEnd() - 1 );
-				if( c != '>' )
-					break;
-			}
+	/**
+	 * Analyzes a XML document in parallel.
+	 * <p>
+	 * The document is split into chunks that are analyzed by the pool.
+	 * Every chunk starts after a '&gt;' and is first analyzed as if this character
+	 * ended a mark-up. When this guess was wrong, the beginning of the chunk is analyzed
+	 * again, until the regions are the same than the guessed ones.
+	 * </p>
+	 * <p>
+	 * The result is the same than {@link #analyzeXml(CharSequence, XmlRegionHandler)}.
+	 * The handler is notified from the current thread, in the order of the document,
+	 * once all the chunks have been analyzed. Small documents are analyzed sequentially.
+	 * </p>
+	 *
+	 * @param xml the XML text (may be an invalid XML document)
+	 * @param handler the handler to notify when a region is found
+	 * @param pool the pool that analyzes the chunks
+	 */
+	public void analyzeXmlInParallel( CharSequence xml, XmlRegionHandler handler, ForkJoinPool pool ) {
+		XmlRegionParallelLexer.analyze( xml, handler, pool, XmlRegionParallelLexer.MIN_CHUNK_SIZE );
+	}
 
-			return false;
-		}
 
-		// Analyze what we have...
-		boolean result = false;
-		int newPos = this.offset;
-		char c;
-		while( newPos < xml.length()
-				&& (c = xml.charAt( newPos )) != '='
-				&& c != '/'
-				&& c != '>'
-				&& ! Character.isWhitespace( c ))
-			newPos ++;
-
-		// Found one?
-		if( newPos != this.offset ) {
-			positions.add( new XmlRegion( XmlRegionType.ATTRIBUTE, this.offset, newPos ));
-			this.offset = newPos;
-			result = true;
-		}
+	/**
+	 * Analyzes a batch of documents concurrently.
+	 * <p>
+	 * Equivalent to <code>analyzeXmlBatch( documents, executor, parallelism )</code> with an
+	 * executor shared by all the analyzers (virtual threads when the JVM supports them,
+	 * a fixed pool otherwise), and one worker per processor.
+	 * </p>
+	 *
+	 * @param documents the documents (may be invalid XML documents)
+	 * @return the regions of every document, in the order of the batch
+	 * @throws InterruptedException if the current thread was interrupted while waiting for the analyses
+	 */
+	public List<List<XmlRegion>> analyzeXmlBatch( Iterable<? extends CharSequence> documents ) throws InterruptedException {
+		return XmlRegionBatch.analyze( this, documents, XmlRegionBatch.ExecutorHolder.EXECUTOR, XmlRegionBatch.ExecutorHolder.PARALLELISM );
+	}
 
-		return result;
+
+	/**
+	 * Analyzes a batch of documents concurrently.
+	 * <p>
+	 * The results are immutable and compact lists (see {@link XmlRegionBuffer#snapshot()}).
+	 * </p>
+	 *
+	 * @param documents the documents (may be invalid XML documents)
+	 * @param executor the executor that runs the analyses
+	 * @param parallelism the maximal number of documents analyzed at the same time
+	 * @return the regions of every document, in the order of the batch
+	 * @throws InterruptedException if the current thread was interrupted while waiting for the analyses
+	 */
+	public List<List<XmlRegion>> analyzeXmlBatch( Iterable<? extends CharSequence> documents, Executor executor, int parallelism ) throws InterruptedException {
+		return XmlRegionBatch.analyze( this, documents, executor, parallelism );
 	}
 
 
 	/**
-	 * Tries to analyze a mark-up's value.
-	 * @param xml the XML text
-	 * @param positions the positions already found
-	 * @return true if it recognized a XML instruction
+	 * Analyzes a batch of documents concurrently and notifies a handler for every document.
+	 * <p>
+	 * The documents are read from the iterable as they are analyzed: it may produce them lazily.
+	 * A buffer is allocated per worker and reused for all the documents it analyzes. The handler is
+	 * invoked by the workers, as soon as a document has been analyzed. This method returns once
+	 * all the documents have been analyzed. The first error (thrown by the handler or by the iterable)
+	 * stops the analyses and is thrown by this method. Interruptions of the current thread also stop
+	 * the analyses. Exceptions are only thrown once the workers have stopped: the handler is not
+	 * invoked anymore.
+	 * </p>
+	 *
+	 * @param documents the documents (may be invalid XML documents)
+	 * @param handler the handler to notify when a document has been analyzed
+	 * @param executor the executor that runs the analyses
+	 * @param parallelism the maximal number of documents analyzed at the same time
+	 * @throws InterruptedException if the current thread was interrupted while waiting for the analyses
 	 */
-	boolean analyzeMarkupValue( String xml, List<XmlRegion> positions ) {
-
-		// A mark-up value follows a mark-up
-		for( int i=positions.size() - 1; i >=0; i-- ) {
-			XmlRegion xr = positions.get( i );
-			if( xr.getXmlRegionType() == XmlRegionType.WHITESPACE )
-				continue;
-
-			if( xr.getXmlRegionType() == XmlRegionType.MARKUP
-					|| xr.getXmlRegionType() == XmlRegionType.COMMENT ) {
-				char c = xml.charAt( xr.getEnd() - 1 );
-				if( c == '>' )
-					break;
-			}
+	public void analyzeXmlBatch( Iterable<? extends CharSequence> documents, XmlRegionBatchHandler handler, Executor executor, int parallelism ) throws InterruptedException {
+		XmlRegionBatch.analyze( this, documents, handler, executor, parallelism );
+	}
 
-			return false;
-		}
 
-		// Read...
-		boolean result = false;
-		int newPos = this.offset;
-		while( newPos < xml.length()
-					&& xml.charAt( newPos ) != '<' )
-			newPos ++;
-
-		// We read something and this something is not only made up of white spaces
-		if( this.offset != newPos ) {
-
-			// We must here repair the list if the previous position is made up of white spaces
-			XmlRegion xr = positions.get( positions.size() - 1 );
-			int start = this.offset;
-			if( xr.getXmlRegionType() == XmlRegionType.WHITESPACE ) {
-				start = xr.getStart();
-				positions.remove( xr );
-			}
+	/**
+	 * Analyzes a XML document, notifies a handler for every region and records checkpoints.
+	 * <p>
+	 * Checkpoints allow to restart the analysis anywhere in the document, without analyzing
+	 * what precedes (see {@link #analyzeXmlFrom(CharSequence, XmlRegionCheckpoint, XmlRegionHandler)}
+	 * and {@link #analyzeXmlRange(CharSequence, int, int, XmlRegionHandler, XmlRegionCheckpoints)}).
+	 * </p>
+	 *
+	 * @param xml the XML text (may be an invalid XML document)
+	 * @param handler the handler to notify when a region is found
+	 * @param checkpoints the table to fill in (cleared first)
+	 */
+	public void analyzeXml( CharSequence xml, XmlRegionHandler handler, XmlRegionCheckpoints checkpoints ) {
+		analyzeXml( xml, checkpoints.recorder( xml, handler ));
+	}
 
-			positions.add( new XmlRegion( XmlRegionType.MARKUP_VALUE, start, newPos ));
-			this.offset = newPos;
-			result = true;
-		}
 
-		return result;
+	/**
+	 * Analyzes a XML document from a checkpoint until its end.
+	 * <p>
+	 * The regions are the same than those a complete analysis finds after the checkpoint.
+	 * </p>
+	 *
+	 * @param xml the XML text, which must not have changed since the checkpoint was recorded
+	 * @param checkpoint a checkpoint of this document
+	 * @param handler the handler to notify when a region is found
+	 * @throws IllegalArgumentException if the checkpoint is not in the document
+	 */
+	public void analyzeXmlFrom( CharSequence xml, XmlRegionCheckpoint checkpoint, XmlRegionHandler handler ) {
+
+		if( checkpoint.getOffset() > xml.length())
+			throw new IllegalArgumentException( "The checkpoint is not in the document: " + checkpoint );
+
+		XmlRegionLexer lexer = new XmlRegionLexer( handler );
+		lexer.setWindow( xml );
+		lexer.update( xml.length(), true );
+		lexer.restartAt((int) checkpoint.getOffset(), checkpoint.getContext());
+		lexer.analyze();
 	}
 
 
 	/**
-	 * Tries to analyze a XML attribute's value.
-	 * @param xml the XML text
-	 * @param positions the positions already found
-	 * @return true if it recognized a XML instruction
+	 * Analyzes the part of a XML document that covers a given range.
+	 * <p>
+	 * This is meant for text editors, which only need the regions of the visible lines.
+	 * The analysis restarts a little before the range, from a position found by a short
+	 * backward search, and stops as soon as the range is covered. Its cost depends on the size
+	 * of the range, not on the size of the document. Every region that intersects the range
+	 * is notified, in the order of the document, even if it starts before the range.
+	 * </p>
+	 * <p>
+	 * The backward search assumes the analysis can restart after a complete mark-up.
+	 * The regions are then the same than a complete analysis, unless the text before the restart point
+	 * changed the lexical context. This happens when the range is in a comment or a CDATA section bigger
+	 * than {@value XmlRegionViewport#LOOKBEHIND} characters, in an instruction or in an attribute value,
+	 * or when some text follows a CDATA section or an instruction before the range (a complete analysis
+	 * reports it as an unexpected region, up to the end of the document). The whole range is covered anyway.
+	 * Restarting from checkpoints always gives the same regions than a complete analysis.
+	 * </p>
+	 *
+	 * @param xml the XML text (may be an invalid XML document)
+	 * @param from the start of the range (included)
+	 * @param to the end of the range (excluded)
+	 * @param handler the handler to notify when a region is found
+	 * @throws IllegalArgumentException if the range is not in the document
 	 */
-	boolean analyzeAttributeValue( String xml, List<XmlRegion> positions ) {
+	public void analyzeXmlRange( CharSequence xml, int from, int to, XmlRegionHandler handler ) {
 
-		// An attribute value follows an attribute
-		for( int i=positions.size() - 1; i >=0; i-- ) {
-			XmlRegion xr = positions.get( i );
-			if( xr.getXmlRegionType() == XmlRegionType.WHITESPACE )
-				continue;
+		if( from < 0 || from > to || to > xml.length())
+			throw new IllegalArgumentException( "Invalid range: [" + from + ", " + to + "[" );
 
-			if( xr.getXmlRegionType() == XmlRegionType.ATTRIBUTE )
-				break;
+		XmlRegionViewport.analyze( xml, from, to, handler );
+	}
 
-			return false;
-		}
 
-		// Analyze what we have
-		boolean result = false;
-		int newPos = this.offset;
-		if( xml.charAt( newPos ) == '=' ) {
-			analyzeWhitespaces( xml, positions );
-
-			int cpt = 0;
-			char previous = '!';
-			while( ++ newPos < xml.length()) {
-				char c = xml.charAt( newPos );
-				if( previous != '\\' && c == '"' )
-					cpt ++;
-
-				previous = c;
-				if( cpt == 2 ) {
-					newPos ++;
-					break;
-				}
-			}
+	/**
+	 * Analyzes the part of a XML document that covers a given range, restarting from a checkpoint.
+	 * <p>
+	 * The analysis restarts from the last checkpoint before the range: it costs at most
+	 * the interval between two checkpoints, plus the range. The regions are always
+	 * the same than a complete analysis.
+	 * </p>
+	 *
+	 * @param xml the XML text, which must not have changed since the checkpoints were recorded
+	 * @param from the start of the range (included)
+	 * @param to the end of the range (excluded)
+	 * @param handler the handler to notify when a region is found
+	 * @param checkpoints the checkpoints of this document
+	 * @throws IllegalArgumentException if the range is not in the document
+	 */
+	public void analyzeXmlRange( CharSequence xml, int from, int to, XmlRegionHandler handler, XmlRegionCheckpoints checkpoints ) {
 
-			positions.add( new XmlRegion( XmlRegionType.ATTRIBUTE_VALUE, this.offset, newPos ));
-			this.offset = newPos;
-			result = true;
-		}
+		if( from < 0 || from > to || to > xml.length())
+			throw new IllegalArgumentException( "Invalid range: [" + from + ", " + to + "[" );
 
-		return result;
+		XmlRegionViewport.analyze( xml, from, to, handler, checkpoints.findBefore( from ));
 	}
 
 
 	/**
-	 * Tries to analyze a CDATA section.
-	 * @param xml the XML text
-	 * @param positions the positions already found
-	 * @return true if it recognized a XML instruction
+	 * Updates the regions of a XML document after a modification.
+	 * <p>
+	 * Only the part of the document around the modification is analyzed again.
+	 * The analysis starts a little before the modification and stops as soon as the
+	 * regions are the same than before. The positions of the regions that follow
+	 * are shifted. The result is the same than a complete analysis of the modified document.
+	 * </p>
+	 * <p>
+	 * Modifications are described the way text editors notify them: some characters
+	 * were removed at a given position, and others were inserted instead.
+	 * </p>
+	 *
+	 * @param xml the modified XML text
+	 * @param positions the regions of the document before the modification (updated by this method)
+	 * @param offset the position of the modification
+	 * @param removedLength the number of characters that were removed
+	 * @param insertedLength the number of characters that were inserted
+	 * @return the range of the modified document whose regions changed
+	 * @throws IllegalArgumentException if the modification is not consistent with the document
 	 */
-	boolean analyzeCData( String xml, List<XmlRegion> positions ) {
-
-		boolean result = false;
-		int newPos = this.offset;
-		if( xml.charAt( newPos ) == '<'
-				&& ++ newPos < xml.length()
-				&& xml.charAt( newPos ) == '!'
-				&& ++ newPos < xml.length()
-				&& xml.charAt( newPos ) == '['
-				&& ++ newPos < xml.length()
-				&& xml.charAt( newPos ) == 'C'
-				&& ++ newPos < xml.length()
-				&& xml.charAt( newPos ) == 'D'
-				&& ++ newPos < xml.length()
-				&& xml.charAt( newPos ) == 'A'
-				&& ++ newPos < xml.length()
-				&& xml.charAt( newPos ) == 'T'
-				&& ++ newPos < xml.length()
-				&& xml.charAt( newPos ) == 'A'
-				&& ++ newPos < xml.length()
-				&& xml.charAt( newPos ) == '[') {
-
-			int cpt = 0;
-			while( ++ newPos < xml.length()) {
-				char c = xml.charAt( newPos );
-				if( cpt < 2 && c == ']'
-						|| cpt == 2 && c == '>' )
-					cpt ++;
-				else
-					cpt = 0;
-
-				if( cpt == 3 ) {
-					newPos ++;
-					break;
-				}
-			}
+	public XmlRegionDamage reanalyzeXml( CharSequence xml, XmlRegionBuffer positions, int offset, int removedLength, int insertedLength ) {
 
-			positions.add( new XmlRegion( XmlRegionType.CDATA, this.offset, newPos ));
-			this.offset = newPos;
-			result = true;
-		}
+		if( offset < 0 || removedLength < 0 || insertedLength < 0 || offset + insertedLength > xml.length())
+			throw new IllegalArgumentException( "Invalid modification: " + offset + ", " + removedLength + ", " + insertedLength );
 
-		return result;
+		int oldLength = positions.isEmpty() ? 0 : positions.getEnd( positions.size() - 1 );
+		if( oldLength != xml.length() - insertedLength + removedLength )
+			throw new IllegalArgumentException( "The regions do not match the document before the modification." );
+
+		return XmlRegionUpdater.update( xml, positions, offset, removedLength, insertedLength );
 	}
 
 
 	/**
-	 * Tries to analyze white spaces.
+	 * Analyzes a XML document from a stream of characters.
 	 * <p>
-	 * If white spaces are found, a XML position is stored and the offset is updated.
+	 * Equivalent to <code>analyzeXml( reader, handler, DEFAULT_BUFFER_SIZE )</code>.
 	 * </p>
 	 *
-	 * @param xml the XML text
-	 * @param positions the positions already found
+	 * @param reader a reader for the XML text (may be an invalid XML document), not closed by this method
+	 * @param handler the handler to notify when a region is found
+	 * @throws IOException if the reader could not be read
+	 */
+	public void analyzeXml( Reader reader, XmlRegionHandler handler ) throws IOException {
+		analyzeXml( reader, handler, DEFAULT_BUFFER_SIZE );
+	}
+
+
+	/**
+	 * Analyzes a XML document from a stream of bytes.
+	 * @param in a stream for the XML text (may be an invalid XML document), not closed by this method
+	 * @param charset the charset used to decode the bytes
+	 * @param handler the handler to notify when a region is found
+	 * @throws IOException if the stream could not be read
+	 * @see #analyzeXml(Reader, XmlRegionHandler)
 	 */
-	void analyzeWhitespaces( String xml, List<XmlRegion> positions ) {
+	public void analyzeXml( InputStream in, Charset charset, XmlRegionHandler handler ) throws IOException {
+		analyzeXml( new InputStreamReader( in, charset ), handler, DEFAULT_BUFFER_SIZE );
+	}
 
-		int i = this.offset;
-		while( i < xml.length()
-				&& Character.isWhitespace( xml.charAt( i )))
-			i++;
 
-		if( i != this.offset ) {
-			positions.add( new XmlRegion( XmlRegionType.WHITESPACE, this.offset, i ));
-			this.offset = i;
+	/**
+	 * Analyzes a XML document from a stream of characters.
+	 * <p>
+	 * The document is read through a buffer of fixed size. Regions are notified
+	 * as soon as they are complete, with positions relative to the beginning of the stream.
+	 * A region can be much bigger than the buffer: the lexer state is kept from one
+	 * buffer to the next one.
+	 * </p>
+	 * <p>
+	 * The memory used by this method does not depend on the size of the document.
+	 * There is one exception: an instruction that is never closed is read again as a
+	 * mark-up (just like {@link #analyzeXml(String)} does). The characters that follow
+	 * such an instruction are kept until we know whether it is closed or not.
+	 * </p>
+	 * <p>
+	 * To keep the regions, use a {@link XmlRegionBuffer} as the handler.
+	 * </p>
+	 *
+	 * @param reader a reader for the XML text (may be an invalid XML document), not closed by this method
+	 * @param handler the handler to notify when a region is found
+	 * @param bufferSize the size of the buffer, in characters
+	 * @throws IOException if the reader could not be read
+	 */
+	public void analyzeXml( Reader reader, XmlRegionHandler handler, int bufferSize ) throws IOException {
+
+		XmlRegionMeter meter = XmlRegionMeter.create( handler, this.metricsListener );
+		XmlRegionStreamLexer lexer = new XmlRegionStreamLexer( reader, meter == null ? handler : meter, bufferSize );
+		while( lexer.advance()) {
+			// nothing
 		}
+
+		if( meter != null )
+			meter.publish();
+	}
+
+
+	/**
+	 * Holds the default pool for parallel analyses (created on demand).
+	 * @author Vincent Zurczak
+	 */
+	private static final class PoolHolder {
+		static final ForkJoinPool POOL = new ForkJoinPool();
 	}
 }
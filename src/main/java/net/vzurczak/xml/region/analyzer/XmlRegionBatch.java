@@ -0,0 +1,263 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Analyzes a batch of documents concurrently.
+ * <p>
+ * A fixed number of workers is submitted to the executor. Every worker takes
+ * the next document from the batch, analyzes it into its own buffer, notifies
+ * the handler and starts again, until the batch is empty. Buffers are thus allocated
+ * once per worker, and not once per document.
+ * </p>
+ * <p>
+ * The first failure stops the workers and is thrown to the caller,
+ * once all of them have stopped.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+final class XmlRegionBatch {
+
+	private final XmlRegionAnalyzer analyzer;
+	private final Iterator<? extends CharSequence> documents;
+	private final XmlRegionBatchHandler handler;
+
+	private int nextIndex;
+	private volatile Throwable failure;
+
+
+	/**
+	 * Constructor.
+	 * @param analyzer the analyzer
+	 * @param documents the documents
+	 * @param handler the handler to notify
+	 */
+	private XmlRegionBatch( XmlRegionAnalyzer analyzer, Iterator<? extends CharSequence> documents, XmlRegionBatchHandler handler ) {
+		this.analyzer = analyzer;
+		this.documents = documents;
+		this.handler = handler;
+	}
+
+
+	/**
+	 * Analyzes a batch of documents and notifies a handler for every document.
+	 * @param analyzer the analyzer
+	 * @param documents the documents
+	 * @param handler the handler to notify
+	 * @param executor the executor that runs the workers
+	 * @param parallelism the number of workers
+	 * @throws InterruptedException if the current thread was interrupted while waiting for the workers
+	 * (thrown once the workers have stopped, with the interrupted status of the thread set)
+	 */
+	static void analyze( XmlRegionAnalyzer analyzer, Iterable<? extends CharSequence> documents, XmlRegionBatchHandler handler, Executor executor, int parallelism ) throws InterruptedException {
+
+		if( parallelism <= 0 )
+			throw new IllegalArgumentException( "The parallelism must be strictly positive: " + parallelism );
+
+		final XmlRegionBatch batch = new XmlRegionBatch( analyzer, documents.iterator(), handler );
+		if( parallelism == 1 ) {
+			batch.work();
+
+		} else {
+			final CountDownLatch done = new CountDownLatch( parallelism );
+			Runnable worker = new Runnable() {
+				@Override
+				public void run() {
+					try {
+						batch.work();
+					} finally {
+						done.countDown();
+					}
+				}
+			};
+
+			for( int i=0; i<parallelism; i++ ) {
+				try {
+					executor.execute( worker );
+
+				} catch( RejectedExecutionException e ) {
+					worker.run();
+				}
+			}
+
+			try {
+				done.await();
+
+			} catch( InterruptedException e ) {
+				// Stop the workers, but do not return while they may still notify the handler
+				batch.fail( e );
+				awaitUninterruptibly( done );
+				Thread.currentThread().interrupt();
+				throw e;
+			}
+		}
+
+		Throwable failure = batch.failure;
+		if( failure instanceof RuntimeException )
+			throw (RuntimeException) failure;
+
+		if( failure instanceof Error )
+			throw (Error) failure;
+	}
+
+
+	/**
+	 * Analyzes a batch of documents.
+	 * @param analyzer the analyzer
+	 * @param documents the documents
+	 * @param executor the executor that runs the workers
+	 * @param parallelism the number of workers
+	 * @return the regions of every document, in the order of the batch
+	 * @throws InterruptedException if the current thread was interrupted while waiting for the workers
+	 */
+	static List<List<XmlRegion>> analyze( XmlRegionAnalyzer analyzer, Iterable<? extends CharSequence> documents, Executor executor, int parallelism ) throws InterruptedException {
+
+		final List<List<XmlRegion>> result = new ArrayList<> ();
+		analyze( analyzer, documents, new XmlRegionBatchHandler() {
+			@Override
+			public void onDocument( int index, CharSequence xml, XmlRegionBuffer regions ) {
+
+				List<XmlRegion> snapshot = regions.snapshot();
+				synchronized( result ) {
+					while( result.size() <= index )
+						result.add( null );
+
+					result.set( index, snapshot );
+				}
+			}
+
+		}, executor, parallelism );
+
+		return result;
+	}
+
+
+	/**
+	 * Waits for a latch, even if the current thread is interrupted.
+	 * @param latch a latch
+	 */
+	private static void awaitUninterruptibly( CountDownLatch latch ) {
+
+		boolean waiting = true;
+		while( waiting ) {
+			try {
+				latch.await();
+				waiting = false;
+
+			} catch( InterruptedException e ) {
+				// nothing, the interruption is restored by the caller
+			}
+		}
+	}
+
+
+	/**
+	 * Analyzes documents until the batch is empty or until an error occurs.
+	 */
+	private void work() {
+
+		XmlRegionBuffer buffer = new XmlRegionBuffer( 1024 );
+		try {
+			int index;
+			CharSequence xml;
+			while( this.failure == null ) {
+				synchronized( this ) {
+					if( ! this.documents.hasNext())
+						break;
+
+					index = this.nextIndex ++;
+					xml = this.documents.next();
+				}
+
+				buffer.clear();
+				this.analyzer.analyzeXml( xml, buffer );
+				this.handler.onDocument( index, xml, buffer );
+			}
+
+		} catch( Throwable t ) {
+			fail( t );
+		}
+	}
+
+
+	/**
+	 * Records a failure and stops the workers (only the first failure is kept).
+	 * @param t the failure
+	 */
+	private synchronized void fail( Throwable t ) {
+		if( this.failure == null )
+			this.failure = t;
+	}
+
+
+	/**
+	 * Holds the default executor for batches (created on demand).
+	 * <p>
+	 * Virtual threads are used when the JVM supports them (Java 21 and later).
+	 * Otherwise, a fixed pool of daemon threads is used, with one thread per processor.
+	 * </p>
+	 *
+	 * @author Vincent Zurczak
+	 */
+	static final class ExecutorHolder {
+
+		static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+		static final ExecutorService EXECUTOR = createExecutor();
+
+
+		/**
+		 * @return a non-null executor
+		 */
+		private static ExecutorService createExecutor() {
+
+			ExecutorService result;
+			try {
+				Method method = Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" );
+				result = (ExecutorService) method.invoke( null );
+
+			} catch( Exception e ) {
+				final AtomicInteger count = new AtomicInteger();
+				result = Executors.newFixedThreadPool( PARALLELISM, new ThreadFactory() {
+					@Override
+					public Thread newThread( Runnable r ) {
+						Thread thread = new Thread( r, "xml-region-batch-" + count.incrementAndGet());
+						thread.setDaemon( true );
+						return thread;
+					}
+				});
+			}
+
+			return result;
+		}
+	}
+}
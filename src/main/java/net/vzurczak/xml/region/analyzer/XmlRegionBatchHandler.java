@@ -0,0 +1,42 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+/**
+ * A handler that is notified when a document of a batch has been analyzed.
+ * <p>
+ * Documents are analyzed concurrently: this handler is invoked by several threads
+ * at the same time, in no particular order, and must be thread-safe.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ * @version 1.0 (tag version)
+ */
+public interface XmlRegionBatchHandler {
+
+	/**
+	 * Notifies a document was analyzed.
+	 * @param index the index of the document in the batch
+	 * @param xml the document
+	 * @param regions the regions of the document (the buffer is reused for other documents
+	 * once this method returns: it must not be kept, use {@link XmlRegionBuffer#snapshot()} instead)
+	 */
+	void onDocument( int index, CharSequence xml, XmlRegionBuffer regions );
+}
@@ -0,0 +1,107 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the work of an analysis.
+ * <p>
+ * An analysis stops when it has analyzed a maximal number of characters,
+ * when a deadline is passed or when it was cancelled (from any thread). Limits are
+ * checked between two regions: a single region bigger than the budget is still notified.
+ * The regions notified before the analysis stopped are complete and exact.
+ * </p>
+ * <p>
+ * The deadline is computed when the budget is created. A budget can be used
+ * for several analyses (e.g. all the documents of a request).
+ * </p>
+ *
+ * @author Vincent Zurczak
+ * @version 1.0 (tag version)
+ * @see XmlRegionAnalyzer#analyzeXml(CharSequence, XmlRegionHandler, XmlRegionBudget)
+ */
+public final class XmlRegionBudget {
+
+	private final long maxLength;
+	private final long deadline;
+	private final boolean hasDeadline;
+	private volatile boolean cancelled;
+
+
+	/**
+	 * Constructor for a budget without limit (the analysis can only be cancelled).
+	 */
+	public XmlRegionBudget() {
+		this( Long.MAX_VALUE, 0, null );
+	}
+
+
+	/**
+	 * Constructor.
+	 * @param maxLength the maximal number of characters to analyze (or {@link Long#MAX_VALUE})
+	 * @param timeout the time after which analyses stop (0 or less for no deadline)
+	 * @param unit the unit of <code>timeout</code> (can be null if there is no deadline)
+	 */
+	public XmlRegionBudget( long maxLength, long timeout, TimeUnit unit ) {
+
+		if( maxLength < 0 )
+			throw new IllegalArgumentException( "The maximal length cannot be negative: " + maxLength );
+
+		this.maxLength = maxLength;
+		this.hasDeadline = timeout > 0;
+		this.deadline = this.hasDeadline ? System.nanoTime() + unit.toNanos( timeout ) : 0;
+	}
+
+
+	/**
+	 * Cancels the analyses that use this budget.
+	 * <p>
+	 * This method can be invoked from any thread. The analyses stop after their current region.
+	 * </p>
+	 */
+	public void cancel() {
+		this.cancelled = true;
+	}
+
+
+	/**
+	 * @return true if {@link #cancel()} was invoked
+	 */
+	public boolean isCancelled() {
+		return this.cancelled;
+	}
+
+
+	/**
+	 * @return the maximal number of characters to analyze
+	 */
+	public long getMaxLength() {
+		return this.maxLength;
+	}
+
+
+	/**
+	 * @return true if the deadline of this budget is passed
+	 */
+	public boolean isExpired() {
+		return this.hasDeadline && System.nanoTime() - this.deadline >= 0;
+	}
+}
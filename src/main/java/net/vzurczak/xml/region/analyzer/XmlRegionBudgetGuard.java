@@ -0,0 +1,101 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * Stops an analysis when its budget is exhausted.
+ * <p>
+ * The length and the cancellation are checked after every region.
+ * Reading the clock costs more: the deadline is checked every {@link #CLOCK_INTERVAL} regions.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+final class XmlRegionBudgetGuard implements XmlRegionHandler {
+
+	/**
+	 * The number of regions between two checks of the deadline.
+	 */
+	static final int CLOCK_INTERVAL = 64;
+
+	private final XmlRegionHandler handler;
+	private final XmlRegionBudget budget;
+	private final XmlRegionLexer lexer;
+	private int counter = -1;
+	private long end;
+
+
+	/**
+	 * Constructor.
+	 * @param handler the handler to notify
+	 * @param budget the budget
+	 */
+	private XmlRegionBudgetGuard( XmlRegionHandler handler, XmlRegionBudget budget ) {
+		this.handler = handler;
+		this.budget = budget;
+		this.lexer = new XmlRegionLexer( this );
+	}
+
+
+	/**
+	 * Analyzes a XML text, in the limits of a budget.
+	 * @param xml the XML text
+	 * @param handler the handler to notify
+	 * @param budget the budget
+	 * @return true if the whole text was analyzed, false if the analysis was stopped
+	 */
+	static boolean analyze( CharSequence xml, XmlRegionHandler handler, XmlRegionBudget budget ) {
+
+		XmlRegionBudgetGuard guard = new XmlRegionBudgetGuard( handler, budget );
+		if( ! guard.isExhausted())
+			guard.lexer.analyze( xml );
+
+		return guard.end == xml.length();
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.vzurczak.xml.region.analyzer.XmlRegionHandler
+	 * #onRegion(net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType, long, long)
+	 */
+	@Override
+	public void onRegion( XmlRegionType xmlRegionType, long start, long end ) {
+
+		this.handler.onRegion( xmlRegionType, start, end );
+		this.end = end;
+
+		// White spaces are notified before the next region is complete
+		if( xmlRegionType != XmlRegionType.WHITESPACE && isExhausted())
+			this.lexer.stop();
+	}
+
+
+	/**
+	 * @return true if the budget is exhausted (the deadline is checked on the first invocation)
+	 */
+	private boolean isExhausted() {
+		return this.end >= this.budget.getMaxLength()
+				|| this.budget.isCancelled()
+				|| ++ this.counter % CLOCK_INTERVAL == 0 && this.budget.isExpired();
+	}
+}
@@ -0,0 +1,345 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * A compact storage for XML regions.
+ * <p>
+ * Regions are not stored as objects but in parallel arrays of primitives
+ * (type codes, start positions and end positions). Reading a region through
+ * the indexed accessors does not allocate anything.
+ * </p>
+ * <p>
+ * {@link #asList()} exposes the buffer as a list of {@link XmlRegion}s.
+ * Those are created lazily, when they are read.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ * @version 1.0 (tag version)
+ */
+public class XmlRegionBuffer implements XmlRegionHandler {
+
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final XmlRegionType[] TYPES = XmlRegionType.values();
+
+	private byte[] types;
+	private int[] starts;
+	private int[] ends;
+	private int size;
+
+
+	/**
+	 * Constructor.
+	 */
+	public XmlRegionBuffer() {
+		this( DEFAULT_CAPACITY );
+	}
+
+
+	/**
+	 * Constructor.
+	 * @param initialCapacity the initial capacity (the buffer grows when necessary)
+	 */
+	public XmlRegionBuffer( int initialCapacity ) {
+
+		if( initialCapacity < 0 )
+			throw new IllegalArgumentException( "The initial capacity cannot be negative: " + initialCapacity );
+
+		this.types = new byte[ initialCapacity ];
+		this.starts = new int[ initialCapacity ];
+		this.ends = new int[ initialCapacity ];
+	}
+
+
+	/**
+	 * Adds a region at the end of the buffer.
+	 * @param xmlRegionType the region type
+	 * @param start the start position (included)
+	 * @param end the end position (excluded)
+	 */
+	public void add( XmlRegionType xmlRegionType, int start, int end ) {
+
+		if( this.size == this.types.length )
+			grow();
+
+		this.types[ this.size ] = (byte) xmlRegionType.ordinal();
+		this.starts[ this.size ] = start;
+		this.ends[ this.size ] = end;
+		this.size ++;
+	}
+
+
+	/**
+	 * Adds a region at the end of the buffer.
+	 * <p>
+	 * Positions are stored as integers. Regions located beyond
+	 * {@link Integer#MAX_VALUE} cannot be stored in a buffer.
+	 * </p>
+	 */
+	@Override
+	public void onRegion( XmlRegionType xmlRegionType, long start, long end ) {
+
+		if( end > Integer.MAX_VALUE )
+			throw new IllegalArgumentException( "Region positions exceed the capacity of a buffer: " + end );
+
+		add( xmlRegionType, (int) start, (int) end );
+	}
+
+
+	/**
+	 * @return the number of regions in this buffer
+	 */
+	public int size() {
+		return this.size;
+	}
+
+
+	/**
+	 * @return true if this buffer does not contain any region
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+
+	/**
+	 * Removes all the regions (the capacity is kept).
+	 */
+	public void clear() {
+		this.size = 0;
+	}
+
+
+	/**
+	 * @param index the region index
+	 * @return the type of the region
+	 */
+	public XmlRegionType getXmlRegionType( int index ) {
+		checkIndex( index );
+		return TYPES[ this.types[ index ]];
+	}
+
+
+	/**
+	 * @param index the region index
+	 * @return the start position of the region (included)
+	 */
+	public int getStart( int index ) {
+		checkIndex( index );
+		return this.starts[ index ];
+	}
+
+
+	/**
+	 * @param index the region index
+	 * @return the end position of the region (excluded)
+	 */
+	public int getEnd( int index ) {
+		checkIndex( index );
+		return this.ends[ index ];
+	}
+
+
+	/**
+	 * Gets a list view of this buffer.
+	 * <p>
+	 * The view is not modifiable, but it reflects the changes made to the buffer.
+	 * Its elements are created when they are read.
+	 * </p>
+	 *
+	 * @return a non-null list
+	 */
+	public List<XmlRegion> asList() {
+		return new XmlRegionList();
+	}
+
+
+	/**
+	 * Gets an immutable copy of this buffer, as a list.
+	 * <p>
+	 * The copy uses 9 bytes per region, whatever the capacity of the buffer.
+	 * Its elements are created when they are read. Unlike {@link #asList()}, it does not
+	 * depend on the buffer anymore: it can be kept for a long time and published to other threads.
+	 * </p>
+	 *
+	 * @return a non-null list
+	 */
+	public List<XmlRegion> snapshot() {
+		return new XmlRegionSnapshot(
+				Arrays.copyOf( this.types, this.size ),
+				Arrays.copyOf( this.starts, this.size ),
+				Arrays.copyOf( this.ends, this.size ));
+	}
+
+
+	/**
+	 * @return the start positions (not copied, only the first {@link #size()} ones are regions)
+	 */
+	int[] starts() {
+		return this.starts;
+	}
+
+
+	/**
+	 * @return the end positions (not copied, only the first {@link #size()} ones are regions)
+	 */
+	int[] ends() {
+		return this.ends;
+	}
+
+
+	/**
+	 * Replaces a range of regions by other ones, and shifts the regions that follow.
+	 * @param from the index of the first region to replace (included)
+	 * @param to the index of the last region to replace (excluded)
+	 * @param replacement the new regions
+	 * @param shift the value to add to the positions of the regions after <code>to</code>
+	 */
+	void splice( int from, int to, XmlRegionBuffer replacement, int shift ) {
+
+		if( from < 0 || from > to || to > this.size )
+			throw new IndexOutOfBoundsException( "Range: [" + from + ", " + to + "[, Size: " + this.size );
+
+		int tail = this.size - to;
+		int newSize = from + replacement.size + tail;
+		if( newSize > this.types.length )
+			grow( newSize );
+
+		// Move the tail
+		int newTo = from + replacement.size;
+		System.arraycopy( this.types, to, this.types, newTo, tail );
+		System.arraycopy( this.starts, to, this.starts, newTo, tail );
+		System.arraycopy( this.ends, to, this.ends, newTo, tail );
+		if( shift != 0 ) {
+			for( int i=newTo; i<newSize; i++ ) {
+				this.starts[ i ] += shift;
+				this.ends[ i ] += shift;
+			}
+		}
+
+		// Insert the replacement
+		System.arraycopy( replacement.types, 0, this.types, from, replacement.size );
+		System.arraycopy( replacement.starts, 0, this.starts, from, replacement.size );
+		System.arraycopy( replacement.ends, 0, this.ends, from, replacement.size );
+		this.size = newSize;
+	}
+
+
+	/**
+	 * Grows the arrays (by 50%).
+	 */
+	private void grow() {
+		grow( 0 );
+	}
+
+
+	/**
+	 * Grows the arrays (by 50%, or more if necessary).
+	 * @param minCapacity the minimal capacity
+	 */
+	private void grow( int minCapacity ) {
+
+		int newCapacity = Math.max( this.types.length + (this.types.length >> 1), DEFAULT_CAPACITY );
+		newCapacity = Math.max( newCapacity, minCapacity );
+		this.types = Arrays.copyOf( this.types, newCapacity );
+		this.starts = Arrays.copyOf( this.starts, newCapacity );
+		this.ends = Arrays.copyOf( this.ends, newCapacity );
+	}
+
+
+	/**
+	 * Verifies an index is valid.
+	 * @param index the index to verify
+	 */
+	private void checkIndex( int index ) {
+		if( index < 0 || index >= this.size )
+			throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + this.size );
+	}
+
+
+	/**
+	 * A list view of the buffer.
+	 * @author Vincent Zurczak
+	 */
+	private class XmlRegionList extends AbstractList<XmlRegion> implements RandomAccess {
+
+		@Override
+		public XmlRegion get( int index ) {
+			checkIndex( index );
+			return new XmlRegion(
+					TYPES[ XmlRegionBuffer.this.types[ index ]],
+					XmlRegionBuffer.this.starts[ index ],
+					XmlRegionBuffer.this.ends[ index ]);
+		}
+
+
+		@Override
+		public int size() {
+			return XmlRegionBuffer.this.size;
+		}
+	}
+
+
+	/**
+	 * An immutable copy of a buffer.
+	 * @author Vincent Zurczak
+	 */
+	private static final class XmlRegionSnapshot extends AbstractList<XmlRegion> implements RandomAccess {
+
+		private final byte[] types;
+		private final int[] starts;
+		private final int[] ends;
+
+
+		/**
+		 * Constructor.
+		 * @param types the type codes
+		 * @param starts the start positions
+		 * @param ends the end positions
+		 */
+		XmlRegionSnapshot( byte[] types, int[] starts, int[] ends ) {
+			this.types = types;
+			this.starts = starts;
+			this.ends = ends;
+		}
+
+
+		@Override
+		public XmlRegion get( int index ) {
+
+			if( index < 0 || index >= this.types.length )
+				throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + this.types.length );
+
+			return new XmlRegion( TYPES[ this.types[ index ]], this.starts[ index ], this.ends[ index ]);
+		}
+
+
+		@Override
+		public int size() {
+			return this.types.length;
+		}
+	}
+}
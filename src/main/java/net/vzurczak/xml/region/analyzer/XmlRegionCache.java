@@ -0,0 +1,236 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A cache for the results of an analyzer.
+ * <p>
+ * Documents are identified by their content ({@link String#hashCode()} is cached by the strings,
+ * and a hit is confirmed by {@link String#equals(Object)}), so that collisions never return
+ * the regions of another document. Results are stored as compact snapshots, and evicted
+ * in the LRU order when their estimated size exceeds the memory budget.
+ * </p>
+ * <p>
+ * Cached results cannot be modified: the lists returned by the cache are
+ * {@link XmlRegionBuffer#snapshot() snapshots}, whose elements are created
+ * when they are read. They can thus be shared by several threads.
+ * </p>
+ * <p>
+ * The cache is thread-safe. Documents are analyzed outside the lock: two threads that miss the same
+ * document at the same time both analyze it.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ * @version 1.0 (tag version)
+ */
+public class XmlRegionCache {
+
+	/**
+	 * The default memory budget, in bytes.
+	 */
+	public static final long DEFAULT_BUDGET = 16 * 1024 * 1024;
+
+	/**
+	 * The estimated cost of an entry, without its content and its regions, in bytes.
+	 */
+	private static final int ENTRY_OVERHEAD = 128;
+
+	private final XmlRegionAnalyzer analyzer;
+	private final long budget;
+	private final LinkedHashMap<String,Entry> entries = new LinkedHashMap<>( 16, 0.75f, true );
+
+	private long memoryUsage, hitCount, missCount, evictionCount;
+
+
+	/**
+	 * Constructor.
+	 * @param analyzer the analyzer to use on misses (not null)
+	 */
+	public XmlRegionCache( XmlRegionAnalyzer analyzer ) {
+		this( analyzer, DEFAULT_BUDGET );
+	}
+
+
+	/**
+	 * Constructor.
+	 * @param analyzer the analyzer to use on misses (not null)
+	 * @param budget the memory budget, in bytes (strictly positive)
+	 */
+	public XmlRegionCache( XmlRegionAnalyzer analyzer, long budget ) {
+
+		if( analyzer == null )
+			throw new IllegalArgumentException( "The analyzer cannot be null." );
+
+		if( budget <= 0 )
+			throw new IllegalArgumentException( "The memory budget must be strictly positive: " + budget );
+
+		this.analyzer = analyzer;
+		this.budget = budget;
+	}
+
+
+	/**
+	 * Analyzes a XML document, or gets the cached result.
+	 * @param xml the XML text (may be an invalid XML document)
+	 * @return a non-null and read-only list of XML positions
+	 */
+	public List<XmlRegion> analyzeXml( String xml ) {
+		return getRegions( xml );
+	}
+
+
+	/**
+	 * Analyzes a XML document, or gets the cached result, and notifies a handler for every region.
+	 * @param xml the XML text (may be an invalid XML document)
+	 * @param handler the handler to notify when a region is found
+	 */
+	public void analyzeXml( String xml, XmlRegionHandler handler ) {
+
+		for( XmlRegion xr : getRegions( xml ))
+			handler.onRegion( xr.getXmlRegionType(), xr.getStart(), xr.getEnd());
+	}
+
+
+	/**
+	 * Removes all the entries (counters are kept).
+	 */
+	public synchronized void clear() {
+		this.entries.clear();
+		this.memoryUsage = 0;
+	}
+
+
+	/**
+	 * @return the number of cached documents
+	 */
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+
+	/**
+	 * @return the memory budget, in bytes
+	 */
+	public long getBudget() {
+		return this.budget;
+	}
+
+
+	/**
+	 * @return the estimated memory used by the cached entries, in bytes
+	 */
+	public synchronized long getMemoryUsage() {
+		return this.memoryUsage;
+	}
+
+
+	/**
+	 * @return the number of analyses found in the cache
+	 */
+	public synchronized long getHitCount() {
+		return this.hitCount;
+	}
+
+
+	/**
+	 * @return the number of analyses that were not found in the cache
+	 */
+	public synchronized long getMissCount() {
+		return this.missCount;
+	}
+
+
+	/**
+	 * @return the number of entries removed to respect the memory budget
+	 */
+	public synchronized long getEvictionCount() {
+		return this.evictionCount;
+	}
+
+
+	/**
+	 * Gets the regions of a document from the cache, or analyzes it.
+	 * @param xml the XML text
+	 * @return a snapshot of the regions
+	 */
+	private List<XmlRegion> getRegions( String xml ) {
+
+		// Compute (and cache) the hash of a new string outside the lock
+		xml.hashCode();
+		synchronized( this ) {
+			Entry entry = this.entries.get( xml );
+			if( entry != null ) {
+				this.hitCount ++;
+				return entry.regions;
+			}
+
+			this.missCount ++;
+		}
+
+		XmlRegionBuffer buffer = new XmlRegionBuffer( xml.length() / 8 );
+		this.analyzer.analyzeXml( xml, buffer );
+		List<XmlRegion> regions = buffer.snapshot();
+
+		// Content is stored as UTF-16, regions take 9 bytes each
+		Entry entry = new Entry( regions, ENTRY_OVERHEAD + 2L * xml.length() + 9L * regions.size());
+		if( entry.cost <= this.budget ) {
+			synchronized( this ) {
+				Entry previous = this.entries.put( xml, entry );
+				this.memoryUsage += entry.cost - (previous == null ? 0 : previous.cost);
+
+				Iterator<Map.Entry<String,Entry>> it = this.entries.entrySet().iterator();
+				while( this.memoryUsage > this.budget && it.hasNext()) {
+					this.memoryUsage -= it.next().getValue().cost;
+					it.remove();
+					this.evictionCount ++;
+				}
+			}
+		}
+
+		return regions;
+	}
+
+
+	/**
+	 * A cached result.
+	 * @author Vincent Zurczak
+	 */
+	private static final class Entry {
+
+		final List<XmlRegion> regions;
+		final long cost;
+
+
+		/**
+		 * Constructor.
+		 * @param regions the regions
+		 * @param cost the estimated size of the entry, in bytes
+		 */
+		Entry( List<XmlRegion> regions, long cost ) {
+			this.regions = regions;
+			this.cost = cost;
+		}
+	}
+}
@@ -0,0 +1,92 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.nio.ByteBuffer;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * A handler that translates UTF-8 byte positions into character positions.
+ * <p>
+ * It is meant to be used with {@link XmlRegionAnalyzer#analyzeXml(ByteBuffer, XmlRegionHandler)}
+ * when character positions are needed (e.g. to color a text widget). Regions are forwarded
+ * to another handler, with the positions they have in the decoded text. Characters outside
+ * the Basic Multilingual Plane count for two characters (a surrogate pair), as in Java strings.
+ * </p>
+ * <p>
+ * Regions are notified in order, so that the translation is made incrementally:
+ * every byte is read only once. The bytes are assumed to be valid UTF-8.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ * @version 1.0 (tag version)
+ */
+public class XmlRegionCharPositionHandler implements XmlRegionHandler {
+
+	private final ByteBuffer utf8;
+	private final XmlRegionHandler handler;
+	private int bytePosition;
+	private long charPosition;
+
+
+	/**
+	 * Constructor.
+	 * @param utf8 the analyzed bytes (from their position to their limit)
+	 * @param handler the handler to notify with character positions
+	 */
+	public XmlRegionCharPositionHandler( ByteBuffer utf8, XmlRegionHandler handler ) {
+		this.utf8 = utf8.duplicate();
+		this.handler = handler;
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.vzurczak.xml.region.analyzer.XmlRegionHandler
+	 * #onRegion(net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType, long, long)
+	 */
+	@Override
+	public void onRegion( XmlRegionType xmlRegionType, long start, long end ) {
+
+		long charStart = translate((int) start );
+		long charEnd = translate((int) end );
+		this.handler.onRegion( xmlRegionType, charStart, charEnd );
+	}
+
+
+	/**
+	 * Translates a byte position into a character position.
+	 * @param position a byte position, greater or equal to the previous one
+	 * @return the character position
+	 */
+	private long translate( int position ) {
+
+		int base = this.utf8.position();
+		for( ; this.bytePosition < position; this.bytePosition ++ ) {
+			int b = this.utf8.get( base + this.bytePosition );
+
+			// Count the first byte of every character
+			if(( b & 0xC0 ) != 0x80 )
+				this.charPosition += ( b & 0xF8 ) == 0xF0 ? 2 : 1;
+		}
+
+		return this.charPosition;
+	}
+}
@@ -0,0 +1,107 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.io.Serializable;
+
+/**
+ * A position where an analysis can restart, with the state of the lexer at this position.
+ * <p>
+ * Checkpoints are located right after a region that is not made up of white spaces.
+ * There, the lexer state is entirely described by the lexical context.
+ * Checkpoints are immutable.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ * @version 1.0 (tag version)
+ */
+public final class XmlRegionCheckpoint implements Serializable {
+
+	/**
+	 * The beginning of any document.
+	 */
+	public static final XmlRegionCheckpoint START = new XmlRegionCheckpoint( 0, XmlLexicalContext.START );
+
+	private static final long serialVersionUID = 1L;
+
+	private final long offset;
+	private final XmlLexicalContext context;
+
+
+	/**
+	 * Constructor.
+	 * @param offset the position of the checkpoint
+	 * @param context the lexical context at this position
+	 */
+	XmlRegionCheckpoint( long offset, XmlLexicalContext context ) {
+		this.offset = offset;
+		this.context = context;
+	}
+
+
+	/**
+	 * @return the position of the checkpoint
+	 */
+	public long getOffset() {
+		return this.offset;
+	}
+
+
+	/**
+	 * @return the lexical context at this position
+	 */
+	XmlLexicalContext getContext() {
+		return this.context;
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object
+	 * #equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals( Object obj ) {
+		return obj instanceof XmlRegionCheckpoint
+				&& ((XmlRegionCheckpoint) obj).offset == this.offset
+				&& ((XmlRegionCheckpoint) obj).context == this.context;
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object
+	 * #hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return (int) (this.offset ^ this.offset >>> 32) * 31 + this.context.ordinal();
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object
+	 * #toString()
+	 */
+	@Override
+	public String toString() {
+		return this.offset + " (" + this.context + ")";
+	}
+}
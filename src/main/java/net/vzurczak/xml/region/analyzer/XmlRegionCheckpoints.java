@@ -0,0 +1,233 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * The checkpoints recorded during the analysis of a document.
+ * <p>
+ * A checkpoint is recorded every <code>interval</code> characters (at the end of the first
+ * region that follows). Restarting from the checkpoint that precedes a position thus costs
+ * at most <code>interval</code> characters (plus the size of a region) of analysis.
+ * Checkpoints are stored in parallel arrays of primitives and can be serialized,
+ * to be reused as long as the document does not change.
+ * </p>
+ * <p>
+ * Once filled, the table can be read by several threads.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ * @version 1.0 (tag version)
+ */
+public class XmlRegionCheckpoints implements Serializable {
+
+	/**
+	 * The default interval between two checkpoints, in characters.
+	 */
+	public static final int DEFAULT_INTERVAL = 64 * 1024;
+
+	private static final long serialVersionUID = 1L;
+	private static final XmlLexicalContext[] CONTEXTS = XmlLexicalContext.values();
+
+	private final int interval;
+	private transient long[] offsets = new long[ 16 ];
+	private transient byte[] contexts = new byte[ 16 ];
+	private transient int size;
+
+
+	/**
+	 * Constructor.
+	 */
+	public XmlRegionCheckpoints() {
+		this( DEFAULT_INTERVAL );
+	}
+
+
+	/**
+	 * Constructor.
+	 * @param interval the minimal interval between two checkpoints, in characters (strictly positive)
+	 */
+	public XmlRegionCheckpoints( int interval ) {
+
+		if( interval <= 0 )
+			throw new IllegalArgumentException( "The interval must be strictly positive: " + interval );
+
+		this.interval = interval;
+	}
+
+
+	/**
+	 * @return the minimal interval between two checkpoints, in characters
+	 */
+	public int getInterval() {
+		return this.interval;
+	}
+
+
+	/**
+	 * @return the number of checkpoints
+	 */
+	public int size() {
+		return this.size;
+	}
+
+
+	/**
+	 * Removes all the checkpoints.
+	 */
+	public void clear() {
+		this.size = 0;
+	}
+
+
+	/**
+	 * @param index the index of a checkpoint
+	 * @return the checkpoint
+	 * @throws IndexOutOfBoundsException if the index is not valid
+	 */
+	public XmlRegionCheckpoint get( int index ) {
+
+		if( index < 0 || index >= this.size )
+			throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + this.size );
+
+		return new XmlRegionCheckpoint( this.offsets[ index ], CONTEXTS[ this.contexts[ index ]]);
+	}
+
+
+	/**
+	 * Finds the last checkpoint that does not follow a position.
+	 * @param offset a position in the document
+	 * @return the last checkpoint located at or before <code>offset</code>, or {@link XmlRegionCheckpoint#START}
+	 */
+	public XmlRegionCheckpoint findBefore( long offset ) {
+
+		int low = 0, high = this.size;
+		while( low < high ) {
+			int middle = (low + high) >>> 1;
+			if( this.offsets[ middle ] <= offset )
+				low = middle + 1;
+			else
+				high = middle;
+		}
+
+		return low == 0 ? XmlRegionCheckpoint.START : get( low - 1 );
+	}
+
+
+	/**
+	 * Creates a handler that records checkpoints while the regions of a document are notified.
+	 * <p>
+	 * The table is cleared first.
+	 * </p>
+	 *
+	 * @param xml the XML text
+	 * @param handler the handler to notify
+	 * @return a handler that records checkpoints and notifies <code>handler</code>
+	 */
+	XmlRegionHandler recorder( final CharSequence xml, final XmlRegionHandler handler ) {
+
+		clear();
+		return new XmlRegionHandler() {
+			private long next = XmlRegionCheckpoints.this.interval;
+
+			@Override
+			public void onRegion( XmlRegionType xmlRegionType, long start, long end ) {
+
+				handler.onRegion( xmlRegionType, start, end );
+
+				// Nothing is pending after a region that is not made up of white spaces
+				if( end >= this.next && xmlRegionType != XmlRegionType.WHITESPACE ) {
+					add( end, XmlLexicalContext.after( xmlRegionType, xml.charAt((int) end - 1 )));
+					this.next = end + XmlRegionCheckpoints.this.interval;
+				}
+			}
+		};
+	}
+
+
+	/**
+	 * Adds a checkpoint at the end of the table.
+	 * @param offset the position of the checkpoint (greater than the previous one)
+	 * @param context the lexical context at this position
+	 */
+	void add( long offset, XmlLexicalContext context ) {
+
+		if( this.size == this.offsets.length ) {
+			this.offsets = Arrays.copyOf( this.offsets, 2 * this.size );
+			this.contexts = Arrays.copyOf( this.contexts, 2 * this.size );
+		}
+
+		this.offsets[ this.size ] = offset;
+		this.contexts[ this.size ] = (byte) context.ordinal();
+		this.size ++;
+	}
+
+
+	/**
+	 * Writes the checkpoints (the arrays are not written with their spare capacity).
+	 * @param out the output stream
+	 * @throws IOException
+	 */
+	private void writeObject( ObjectOutputStream out ) throws IOException {
+
+		out.defaultWriteObject();
+		out.writeInt( this.size );
+		for( int i=0; i<this.size; i++ ) {
+			out.writeLong( this.offsets[ i ]);
+			out.writeByte( this.contexts[ i ]);
+		}
+	}
+
+
+	/**
+	 * Reads the checkpoints.
+	 * @param in the input stream
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	private void readObject( ObjectInputStream in ) throws IOException, ClassNotFoundException {
+
+		in.defaultReadObject();
+		int count = in.readInt();
+		if( count < 0 )
+			throw new InvalidObjectException( "Invalid number of checkpoints: " + count );
+
+		this.offsets = new long[ Math.max( 16, count )];
+		this.contexts = new byte[ this.offsets.length ];
+		for( int i=0; i<count; i++ ) {
+			long offset = in.readLong();
+			byte context = in.readByte();
+			if( context < 0 || context >= CONTEXTS.length || i > 0 && offset <= this.offsets[ i - 1 ])
+				throw new InvalidObjectException( "Invalid checkpoint: " + offset + ", " + context );
+
+			this.offsets[ i ] = offset;
+			this.contexts[ i ] = context;
+		}
+
+		this.size = count;
+	}
+}
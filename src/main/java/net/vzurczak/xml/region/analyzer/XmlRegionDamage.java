@@ -0,0 +1,73 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+/**
+ * The range of a document whose regions changed after an incremental analysis.
+ * <p>
+ * The range is limited in [start, end[, in the coordinates of the modified document.
+ * The regions outside this range are the same than before the modification (once shifted).
+ * </p>
+ *
+ * @author Vincent Zurczak
+ * @version 1.0 (tag version)
+ * @see XmlRegionAnalyzer#reanalyzeXml(CharSequence, XmlRegionBuffer, int, int, int)
+ */
+public final class XmlRegionDamage {
+
+	private final int start, end;
+
+
+	/**
+	 * Constructor.
+	 * @param start the start position (included)
+	 * @param end the end position (excluded)
+	 */
+	public XmlRegionDamage( int start, int end ) {
+		this.start = start;
+		this.end = end;
+	}
+
+
+	/**
+	 * @return the start position (included)
+	 */
+	public int getStart() {
+		return this.start;
+	}
+
+
+	/**
+	 * @return the end position (excluded)
+	 */
+	public int getEnd() {
+		return this.end;
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object
+	 * #toString()
+	 */
+	@Override
+	public String toString() {
+		return "[" + this.start + ", " + this.end + "[";
+	}
+}
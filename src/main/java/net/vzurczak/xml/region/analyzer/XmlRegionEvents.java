@@ -0,0 +1,86 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * Emits events about analyses, for profilers.
+ * <p>
+ * This implementation does nothing. On Java 17 and later, a subclass emits
+ * JDK Flight Recorder events (it is shipped in the multi-release JAR). Events
+ * are only emitted while a recording enables them.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+class XmlRegionEvents {
+
+	/**
+	 * The available implementation.
+	 */
+	static final XmlRegionEvents DEFAULT = create();
+
+
+	/**
+	 * @return the Flight Recorder implementation if it is available, this implementation otherwise
+	 */
+	private static XmlRegionEvents create() {
+
+		XmlRegionEvents result;
+		try {
+			result = (XmlRegionEvents) Class.forName( "net.vzurczak.xml.region.analyzer.JfrXmlRegionEvents" ).newInstance();
+
+		} catch( Exception | LinkageError e ) {
+			// Older JVM, or the jdk.jfr module is not available
+			result = new XmlRegionEvents();
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Starts recording an analysis.
+	 * @return a listener to notify once the analysis is complete, or null if no event must be emitted
+	 */
+	XmlRegionMetricsListener begin() {
+		return null;
+	}
+
+
+	/**
+	 * @return the minimal size of the regions that must be reported, or {@link Long#MAX_VALUE} to report none
+	 */
+	long getOversizedRegionSize() {
+		return Long.MAX_VALUE;
+	}
+
+
+	/**
+	 * Reports a region that is bigger than {@link #getOversizedRegionSize()}.
+	 * @param xmlRegionType the region type
+	 * @param start the start position (included)
+	 * @param end the end position (excluded)
+	 */
+	void onOversizedRegion( XmlRegionType xmlRegionType, long start, long end ) {
+		// nothing
+	}
+}
@@ -0,0 +1,76 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.util.Set;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * A handler that only notifies another handler of some types of regions.
+ * <p>
+ * The wanted types are stored in an array indexed by ordinal: the other regions
+ * are dropped by a single array access, before anything is stored or created for them.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+final class XmlRegionFilter implements XmlRegionHandler {
+
+	private static final XmlRegionType[] TYPES = XmlRegionType.values();
+
+	private final XmlRegionHandler handler;
+	private final boolean[] wanted = new boolean[ TYPES.length ];
+
+
+	/**
+	 * Constructor.
+	 * @param handler the handler to notify
+	 * @param types the types of the regions to notify
+	 */
+	private XmlRegionFilter( XmlRegionHandler handler, Set<XmlRegionType> types ) {
+		this.handler = handler;
+		for( XmlRegionType type : types )
+			this.wanted[ type.ordinal()] = true;
+	}
+
+
+	/**
+	 * Creates a filter, if necessary.
+	 * @param handler the handler to notify
+	 * @param types the types of the regions to notify (not null)
+	 * @return a filter, or <code>handler</code> if all the types are wanted
+	 */
+	static XmlRegionHandler create( XmlRegionHandler handler, Set<XmlRegionType> types ) {
+		return types.size() == TYPES.length ? handler : new XmlRegionFilter( handler, types );
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.vzurczak.xml.region.analyzer.XmlRegionHandler
+	 * #onRegion(net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType, long, long)
+	 */
+	@Override
+	public void onRegion( XmlRegionType xmlRegionType, long start, long end ) {
+		if( this.wanted[ xmlRegionType.ordinal()])
+			this.handler.onRegion( xmlRegionType, start, end );
+	}
+}
@@ -0,0 +1,43 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * A handler that is notified of the regions found by a {@link XmlRegionAnalyzer}.
+ * <p>
+ * Regions are notified in the order they appear in the document, as soon as they are complete.
+ * Positions are absolute: they are counted from the beginning of the document,
+ * and may exceed the range of an integer when a stream is analyzed.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ * @version 1.0 (tag version)
+ */
+public interface XmlRegionHandler {
+
+	/**
+	 * Notifies a region was found.
+	 * @param xmlRegionType the region type
+	 * @param start the start position (included)
+	 * @param end the end position (excluded)
+	 */
+	void onRegion( XmlRegionType xmlRegionType, long start, long end );
+}
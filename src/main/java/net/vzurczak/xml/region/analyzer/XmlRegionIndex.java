@@ -0,0 +1,202 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An index to find the regions located at a given position.
+ * <p>
+ * The index is built from the result of an analysis (regions sorted by position,
+ * that do not overlap). It finds regions by a binary search on the bounds of the regions,
+ * stored in arrays of primitives, in O(log n). The regions themselves are not copied:
+ * the index returns those of the list it was built from.
+ * </p>
+ * <p>
+ * An index built from a {@link XmlRegionBuffer} searches the arrays of the buffer.
+ * It neither copies them nor creates regions: they are only created when they are read.
+ * This is the cheapest way to index the result of an analysis. The list constructor
+ * is meant for lists of regions that already exist.
+ * </p>
+ * <p>
+ * The index is immutable and can be read by several threads, provided the list
+ * or the buffer it was built from is not modified anymore.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ * @version 1.0 (tag version)
+ */
+public final class XmlRegionIndex {
+
+	private final List<XmlRegion> regions;
+	private final int[] starts;
+	private final int[] ends;
+	private final int size;
+
+
+	/**
+	 * Constructor.
+	 * @param regions the regions found by an analysis (not null, sorted by position)
+	 * @throws IllegalArgumentException if the regions are not sorted or overlap
+	 */
+	public XmlRegionIndex( List<XmlRegion> regions ) {
+
+		this.regions = regions;
+		this.size = regions.size();
+		this.starts = new int[ this.size ];
+		this.ends = new int[ this.size ];
+
+		int i = 0, previousEnd = Integer.MIN_VALUE;
+		for( XmlRegion xr : regions ) {
+			if( xr.getStart() < previousEnd || xr.getEnd() < xr.getStart())
+				throw new IllegalArgumentException( "Regions must be sorted and must not overlap: " + xr );
+
+			this.starts[ i ] = xr.getStart();
+			this.ends[ i ] = previousEnd = xr.getEnd();
+			i ++;
+		}
+	}
+
+
+	/**
+	 * Constructor.
+	 * <p>
+	 * The buffer must not be modified while this index is used.
+	 * </p>
+	 *
+	 * @param buffer a buffer filled by an analysis (not null, sorted by position)
+	 * @throws IllegalArgumentException if the regions are not sorted or overlap
+	 */
+	public XmlRegionIndex( XmlRegionBuffer buffer ) {
+
+		this.regions = buffer.asList();
+		this.size = buffer.size();
+		this.starts = buffer.starts();
+		this.ends = buffer.ends();
+
+		int previousEnd = Integer.MIN_VALUE;
+		for( int i=0; i<this.size; i++ ) {
+			if( this.starts[ i ] < previousEnd || this.ends[ i ] < this.starts[ i ])
+				throw new IllegalArgumentException( "Regions must be sorted and must not overlap: " + this.regions.get( i ));
+
+			previousEnd = this.ends[ i ];
+		}
+	}
+
+
+	/**
+	 * @return the number of regions in this index
+	 */
+	public int size() {
+		return this.size;
+	}
+
+
+	/**
+	 * @param index the region index
+	 * @return the region
+	 */
+	public XmlRegion get( int index ) {
+		return this.regions.get( index );
+	}
+
+
+	/**
+	 * Finds the region that covers a position.
+	 * @param offset a position in the document
+	 * @return the index of the region that contains <code>offset</code>, or -1 if there is none
+	 */
+	public int indexAt( int offset ) {
+
+		int index = firstEndingAfter( offset );
+		return index < this.size && this.starts[ index ] <= offset ? index : -1;
+	}
+
+
+	/**
+	 * Finds the region that covers a position.
+	 * @param offset a position in the document
+	 * @return the region that contains <code>offset</code>, or null if there is none
+	 */
+	public XmlRegion regionAt( int offset ) {
+
+		int index = indexAt( offset );
+		return index < 0 ? null : this.regions.get( index );
+	}
+
+
+	/**
+	 * Finds the regions that intersect a range.
+	 * <p>
+	 * The result is a view of the list this index was built from.
+	 * </p>
+	 *
+	 * @param from the start of the range (included)
+	 * @param to the end of the range (excluded)
+	 * @return a non-null list, empty if the range is empty
+	 */
+	public List<XmlRegion> regionsIn( int from, int to ) {
+
+		if( from >= to )
+			return Collections.emptyList();
+
+		int first = firstEndingAfter( from );
+		return this.regions.subList( first, firstStartingAt( to, first ));
+	}
+
+
+	/**
+	 * @param offset a position in the document
+	 * @return the index of the first region that ends after <code>offset</code>, or {@link #size()}
+	 */
+	private int firstEndingAfter( int offset ) {
+
+		int low = 0, high = this.size;
+		while( low < high ) {
+			int middle = (low + high) >>> 1;
+			if( this.ends[ middle ] <= offset )
+				low = middle + 1;
+			else
+				high = middle;
+		}
+
+		return low;
+	}
+
+
+	/**
+	 * @param offset a position in the document
+	 * @param low the index to start the search from
+	 * @return the index of the first region that starts at or after <code>offset</code>, or {@link #size()}
+	 */
+	private int firstStartingAt( int offset, int low ) {
+
+		int high = this.size;
+		while( low < high ) {
+			int middle = (low + high) >>> 1;
+			if( this.starts[ middle ] < offset )
+				low = middle + 1;
+			else
+				high = middle;
+		}
+
+		return low;
+	}
+}
@@ -0,0 +1,101 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.lang.reflect.Constructor;
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * The regions of a document, analyzed again by every iterator.
+ * <p>
+ * On Java 17 and later, {@link #create(CharSequence)} returns a sub-class whose spliterator
+ * is ordered, non-null and immutable. Otherwise, this class is used.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+class XmlRegionIterable implements Iterable<XmlRegion> {
+
+	private static final Constructor<?> CONSTRUCTOR = findConstructor();
+	final CharSequence xml;
+
+
+	/**
+	 * Constructor.
+	 * @param xml the XML text (may be an invalid XML document)
+	 */
+	XmlRegionIterable( CharSequence xml ) {
+		this.xml = Objects.requireNonNull( xml, "The XML text cannot be null." );
+	}
+
+
+	/**
+	 * Creates the regions of a document.
+	 * @param xml the XML text (may be an invalid XML document)
+	 * @return a non-null iterable
+	 */
+	static XmlRegionIterable create( CharSequence xml ) {
+
+		XmlRegionIterable result = null;
+		if( CONSTRUCTOR != null ) {
+			try {
+				result = (XmlRegionIterable) CONSTRUCTOR.newInstance( xml );
+
+			} catch( Exception e ) {
+				// nothing, use the default spliterator
+			}
+		}
+
+		if( result == null )
+			result = new XmlRegionIterable( xml );
+
+		return result;
+	}
+
+
+	/**
+	 * @return the constructor of the sub-class for Java 17, or null on older JVMs
+	 */
+	private static Constructor<?> findConstructor() {
+
+		Constructor<?> result;
+		try {
+			result = Class.forName( "net.vzurczak.xml.region.analyzer.SpliteratorXmlRegionIterable" ).getDeclaredConstructor( CharSequence.class );
+
+		} catch( Exception | LinkageError e ) {
+			// Older JVM
+			result = null;
+		}
+
+		return result;
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Iterable
+	 * #iterator()
+	 */
+	@Override
+	public Iterator<XmlRegion> iterator() {
+		return new XmlRegionIterator( this.xml );
+	}
+}
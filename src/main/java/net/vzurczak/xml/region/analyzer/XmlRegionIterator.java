@@ -0,0 +1,113 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * An iterator that analyzes a document as its regions are requested.
+ * <p>
+ * The lexer is stopped after every region and resumed when the next one is needed.
+ * A step of the lexer can notify a white space region along with the following region:
+ * the regions notified by a step are kept in a small buffer until they are returned.
+ * Stopping the iteration early stops the analysis.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+final class XmlRegionIterator implements Iterator<XmlRegion>, XmlRegionHandler {
+
+	private final XmlRegionLexer lexer;
+	private final XmlRegionBuffer pending = new XmlRegionBuffer( 4 );
+	private int index;
+	private boolean done;
+
+
+	/**
+	 * Constructor.
+	 * @param xml the XML text (may be an invalid XML document)
+	 */
+	XmlRegionIterator( CharSequence xml ) {
+		this.lexer = new XmlRegionLexer( this );
+		this.lexer.setWindow( xml );
+		this.lexer.update( xml.length(), true );
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Iterator
+	 * #hasNext()
+	 */
+	@Override
+	public boolean hasNext() {
+
+		if( this.index == this.pending.size() && ! this.done ) {
+			this.pending.clear();
+			this.index = 0;
+			this.lexer.proceed();
+			this.done = this.pending.isEmpty();
+		}
+
+		return this.index < this.pending.size();
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Iterator
+	 * #next()
+	 */
+	@Override
+	public XmlRegion next() {
+
+		if( ! hasNext())
+			throw new NoSuchElementException();
+
+		int i = this.index ++;
+		return new XmlRegion( this.pending.getXmlRegionType( i ), this.pending.getStart( i ), this.pending.getEnd( i ));
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Iterator
+	 * #remove()
+	 */
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException( "Regions cannot be removed." );
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.vzurczak.xml.region.analyzer.XmlRegionHandler
+	 * #onRegion(net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType, long, long)
+	 */
+	@Override
+	public void onRegion( XmlRegionType xmlRegionType, long start, long end ) {
+		this.pending.onRegion( xmlRegionType, start, end );
+		this.lexer.stop();
+	}
+}
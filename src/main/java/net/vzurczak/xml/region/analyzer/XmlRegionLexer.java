@@ -0,0 +1,889 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.nio.CharBuffer;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * The lexical analyzer behind {@link XmlRegionAnalyzer}.
+ * <p>
+ * A lexer holds the state of a single analysis (the characters, the cursor
+ * and the region being read). It must not be shared: a new one is created
+ * for every analysis.
+ * </p>
+ * <p>
+ * The lexer works on a window of characters. When the whole document is available,
+ * the window is the document itself. When a stream is analyzed, the window is a buffer
+ * that is filled progressively. A region that reaches the end of the window is suspended
+ * and resumed once more characters are available. Positions are always notified
+ * relative to the beginning of the document.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ * @version 1.0 (tag version)
+ */
+final class XmlRegionLexer {
+
+	/**
+	 * The number of characters needed to decide what comes next ("&lt;![CDATA[").
+	 */
+	static final int LOOKAHEAD = 9;
+
+	private final XmlRegionHandler handler;
+	private final XmlRegionScanner scanner;
+
+	// The window (and what it is made of, to find delimiters faster)
+	private CharSequence xml;
+	private String string;
+	private char[] chars;
+	private byte[] bytes;
+	private int arrayOffset;
+	private long base;
+	private int limit;
+	private boolean eof;
+	private int offset;
+	private boolean stopped;
+
+	// The region being read, when it may continue after the window
+	private XmlRegionType current;
+	private long regionStart;
+	private int counter;
+	private char previous;
+
+	// What may follow the last region that is not made up of white spaces
+	private XmlLexicalContext context = XmlLexicalContext.START;
+
+	// White spaces are kept aside until we know whether they start a mark-up value
+	private long whitespaceStart = -1;
+	private long whitespaceEnd;
+
+
+	/**
+	 * Constructor.
+	 * @param handler the handler to notify when a region is found
+	 */
+	XmlRegionLexer( XmlRegionHandler handler ) {
+		this( handler, XmlRegionScanner.DEFAULT );
+	}
+
+
+	/**
+	 * Constructor.
+	 * @param handler the handler to notify when a region is found
+	 * @param scanner the scanner to find delimiters in arrays
+	 */
+	XmlRegionLexer( XmlRegionHandler handler, XmlRegionScanner scanner ) {
+		this.handler = handler;
+		this.scanner = scanner;
+	}
+
+
+	/**
+	 * Analyzes a whole XML text.
+	 * @param xml the XML text (may be an invalid XML document)
+	 */
+	void analyze( CharSequence xml ) {
+		setWindow( xml );
+		update( xml.length(), true );
+		analyze();
+	}
+
+
+	/**
+	 * Sets the characters to analyze.
+	 * <p>
+	 * When a buffer is replaced by a bigger one, the retained characters
+	 * must have been copied at the same indexes.
+	 * </p>
+	 *
+	 * @param xml the window
+	 */
+	void setWindow( CharSequence xml ) {
+
+		this.xml = xml;
+		this.string = null;
+		this.chars = null;
+		this.bytes = null;
+		this.arrayOffset = 0;
+
+		if( xml instanceof String ) {
+			this.string = (String) xml;
+
+		} else if( xml instanceof CharBuffer && ((CharBuffer) xml).hasArray()) {
+			CharBuffer buffer = (CharBuffer) xml;
+			this.chars = buffer.array();
+			this.arrayOffset = buffer.arrayOffset() + buffer.position();
+
+		} else if( xml instanceof Utf8CharSequence ) {
+			Utf8CharSequence sequence = (Utf8CharSequence) xml;
+			this.bytes = sequence.array();
+			this.arrayOffset = sequence.arrayOffset();
+		}
+	}
+
+
+	/**
+	 * Indicates how many characters are available in the window.
+	 * @param limit the number of available characters
+	 * @param eof true if no other character will come after them
+	 */
+	void update( int limit, boolean eof ) {
+		this.limit = limit;
+		this.eof = eof;
+	}
+
+
+	/**
+	 * @return the index of the first character the lexer still needs in the window
+	 */
+	int getRetainedIndex() {
+
+		// An unclosed instruction is processed as a mark-up: we must be able to read it again.
+		// Otherwise, the last character of the previous region tells whether it was closed.
+		int result;
+		if( this.current == XmlRegionType.INSTRUCTION )
+			result = (int) (this.regionStart - this.base);
+		else
+			result = Math.max( 0, this.offset - 1 );
+
+		return result;
+	}
+
+
+	/**
+	 * Restarts the analysis at a given position, between two regions.
+	 * @param offset the index of the first character to analyze
+	 * @param context the lexical context at this position
+	 */
+	void restartAt( int offset, XmlLexicalContext context ) {
+		this.offset = offset;
+		this.context = context;
+		this.current = null;
+		this.whitespaceStart = -1;
+		this.stopped = false;
+	}
+
+
+	/**
+	 * Stops the analysis once the current region has been notified.
+	 * <p>
+	 * This method is meant to be invoked by the handler.
+	 * </p>
+	 */
+	void stop() {
+		this.stopped = true;
+	}
+
+
+	/**
+	 * Resumes an analysis that was stopped by the handler.
+	 * <p>
+	 * The analysis goes on until the handler stops it again, or until the end of the window.
+	 * </p>
+	 */
+	void proceed() {
+		this.stopped = false;
+		analyze();
+	}
+
+
+	/**
+	 * Indicates the first characters of the window were removed.
+	 * @param count the number of characters removed from the beginning of the window
+	 */
+	void discard( int count ) {
+		this.base += count;
+		this.offset -= count;
+		this.limit -= count;
+	}
+
+
+	/**
+	 * Analyzes the available characters.
+	 * <p>
+	 * It stops when the end of the window is reached. When the end of the document
+	 * is reached, all the remaining regions are notified.
+	 * </p>
+	 */
+	void analyze() {
+
+		// Resume the region that was interrupted by the end of the window
+		if( this.current != null && ! resume())
+			return;
+
+		while( this.offset < this.limit && ! this.stopped ) {
+
+			// Make sure we can decide what comes next
+			if( ! this.eof && this.limit - this.offset < LOOKAHEAD )
+				return;
+
+			// White spaces
+			char c = this.xml.charAt( this.offset );
+			if( Character.isWhitespace( c )) {
+				if( ! analyzeWhitespaces())
+					return;
+
+				continue;
+			}
+
+			// "<" can be several things
+			boolean found = false;
+			if( c == '<' ) {
+				found = analyzeInstruction()
+						|| analyzeComment()
+						|| analyzeMarkup()
+						|| analyzeCData();
+			}
+
+			// "/" and "/>" can only indicate a mark-up
+			else if( c == '/' && this.offset + 1 < this.limit && this.xml.charAt( this.offset + 1 ) == '>' || c == '>' ) {
+				found = analyzeMarkup();
+			}
+
+			// Other things can be...
+			else {
+				found = analyzeAttribute()
+						|| analyzeAttributeValue()
+						|| analyzeMarkupValue();
+			}
+
+			// Anything else goes until the end
+			if( ! found )
+				analyzeUnexpected();
+
+			// The region goes beyond the window
+			if( this.current != null )
+				return;
+		}
+
+		if( this.eof && ! this.stopped )
+			flushWhitespaces();
+	}
+
+
+	/**
+	 * Tries to analyze a XML instruction.
+	 * @return true if it recognized a XML instruction
+	 */
+	boolean analyzeInstruction() {
+
+		boolean result = false;
+		if( this.offset + 1 < this.limit
+				&& this.xml.charAt( this.offset ) == '<'
+				&& this.xml.charAt( this.offset + 1 ) == '?' ) {
+
+			// The '?' of "<?" can be the one of "?>"
+			startRegion( XmlRegionType.INSTRUCTION, this.offset + 2 );
+			this.counter = 1;
+			scanInstruction();
+			result = true;
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Tries to analyze a XML comment.
+	 * @return true if it recognized a XML instruction
+	 */
+	boolean analyzeComment() {
+
+		boolean result = false;
+		int newPos = this.offset;
+		if( this.xml.charAt( newPos ) == '<'
+				&& ++ newPos < this.limit
+				&& this.xml.charAt( newPos ) == '!'
+				&& ++ newPos < this.limit
+				&& this.xml.charAt( newPos ) == '-'
+				&& ++ newPos < this.limit
+				&& this.xml.charAt( newPos ) == '-' ) {
+
+			startRegion( XmlRegionType.COMMENT, newPos + 1 );
+			this.counter = 0;
+			scanComment();
+			result = true;
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Tries to analyze a XML mark-up.
+	 * @return true if it recognized a XML instruction
+	 */
+	boolean analyzeMarkup() {
+
+		int newPos = this.offset;
+		boolean result = false;
+
+
+		// "<..."
+		if( this.xml.charAt( newPos ) == '<' ) {
+
+			// Do not process a CData section or a comment as a mark-up
+			if( newPos + 1 < this.limit
+					&& this.xml.charAt( newPos + 1 ) == '!' )
+				return false;
+
+			// Mark-up name
+			startRegion( XmlRegionType.MARKUP, newPos );
+			scanMarkup();
+			result = true;
+		}
+
+		// "/>"
+		else if( this.xml.charAt( newPos ) == '/'
+				&& ++ newPos < this.limit
+				&& this.xml.charAt( newPos ) == '>' ) {
+
+			addRegion( XmlRegionType.MARKUP, position( this.offset ), ++ newPos );
+			result = true;
+		}
+
+		// "attributes... >"
+		else if( this.xml.charAt( newPos ) == '>' ) {
+			addRegion( XmlRegionType.MARKUP, position( this.offset ), ++ newPos );
+			result = true;
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Tries to analyze a XML attribute.
+	 * @return true if it recognized a XML instruction
+	 */
+	boolean analyzeAttribute() {
+
+		// An attribute follows a mark-up or another attribute
+		if( ! this.context.allowsAttribute())
+			return false;
+
+		// Analyze what we have...
+		boolean result = false;
+		if( ! isAttributeDelimiter( this.xml.charAt( this.offset ))) {
+			startRegion( XmlRegionType.ATTRIBUTE, this.offset );
+			scanAttribute();
+			result = true;
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Tries to analyze a mark-up's value.
+	 * @return true if it recognized a XML instruction
+	 */
+	boolean analyzeMarkupValue() {
+
+		// A mark-up value follows a mark-up
+		if( ! this.context.allowsMarkupValue())
+			return false;
+
+		// Read...
+		boolean result = false;
+		if( this.xml.charAt( this.offset ) != '<' ) {
+			startRegion( XmlRegionType.MARKUP_VALUE, this.offset );
+
+			// White spaces right before are part of the mark-up value
+			if( this.whitespaceStart != -1 ) {
+				this.regionStart = this.whitespaceStart;
+				this.whitespaceStart = -1;
+			}
+
+			scanMarkupValue();
+			result = true;
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Tries to analyze a XML attribute's value.
+	 * @return true if it recognized a XML instruction
+	 */
+	boolean analyzeAttributeValue() {
+
+		// An attribute value follows an attribute
+		if( ! this.context.allowsAttributeValue())
+			return false;
+
+		// Analyze what we have
+		boolean result = false;
+		if( this.xml.charAt( this.offset ) == '=' ) {
+			startRegion( XmlRegionType.ATTRIBUTE_VALUE, this.offset + 1 );
+			this.counter = 0;
+			this.previous = '!';
+			scanAttributeValue();
+			result = true;
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Tries to analyze a CDATA section.
+	 * @return true if it recognized a XML instruction
+	 */
+	boolean analyzeCData() {
+
+		boolean result = false;
+		int newPos = this.offset;
+		if( this.xml.charAt( newPos ) == '<'
+				&& ++ newPos < this.limit
+				&& this.xml.charAt( newPos ) == '!'
+				&& ++ newPos < this.limit
+				&& this.xml.charAt( newPos ) == '['
+				&& ++ newPos < this.limit
+				&& this.xml.charAt( newPos ) == 'C'
+				&& ++ newPos < this.limit
+				&& this.xml.charAt( newPos ) == 'D'
+				&& ++ newPos < this.limit
+				&& this.xml.charAt( newPos ) == 'A'
+				&& ++ newPos < this.limit
+				&& this.xml.charAt( newPos ) == 'T'
+				&& ++ newPos < this.limit
+				&& this.xml.charAt( newPos ) == 'A'
+				&& ++ newPos < this.limit
+				&& this.xml.charAt( newPos ) == '[') {
+
+			startRegion( XmlRegionType.CDATA, newPos + 1 );
+			this.counter = 0;
+			scanCData();
+			result = true;
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Analyzes white spaces.
+	 * <p>
+	 * The XML position is only stored when the next region is found,
+	 * as white spaces may belong to a mark-up value.
+	 * </p>
+	 *
+	 * @return true if the white spaces were entirely read, false if they go beyond the window
+	 */
+	boolean analyzeWhitespaces() {
+		startRegion( XmlRegionType.WHITESPACE, this.offset );
+		return scanWhitespaces();
+	}
+
+
+	/**
+	 * Analyzes something that is not expected here (it goes until the end of the document).
+	 */
+	void analyzeUnexpected() {
+		startRegion( XmlRegionType.UNEXPECTED, this.offset );
+		scanUnexpected();
+	}
+
+
+	/**
+	 * Resumes the region that was interrupted by the end of the window.
+	 * @return true if the region was completed, false if it still goes beyond the window
+	 */
+	private boolean resume() {
+
+		boolean result;
+		switch( this.current ) {
+		case INSTRUCTION:
+			result = scanInstruction();
+			break;
+
+		case COMMENT:
+			result = scanComment();
+			break;
+
+		case CDATA:
+			result = scanCData();
+			break;
+
+		case MARKUP:
+			result = scanMarkup();
+			break;
+
+		case ATTRIBUTE:
+			result = scanAttribute();
+			break;
+
+		case ATTRIBUTE_VALUE:
+			result = scanAttributeValue();
+			break;
+
+		case MARKUP_VALUE:
+			result = scanMarkupValue();
+			break;
+
+		case WHITESPACE:
+			result = scanWhitespaces();
+			break;
+
+		default:
+			result = scanUnexpected();
+			break;
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Reads an instruction until "?&gt;".
+	 * @return true if the region is complete, false if it goes beyond the window
+	 */
+	private boolean scanInstruction() {
+
+		// An instruction ends with the first '>' that follows a '?'
+		int newPos = this.offset;
+		boolean questionMark = this.counter == 1;
+		while( newPos < this.limit ) {
+			char c = this.xml.charAt( newPos ++ );
+			if( c == '>' && questionMark ) {
+				addRegion( XmlRegionType.INSTRUCTION, this.regionStart, newPos );
+				return true;
+			}
+
+			questionMark = c == '?';
+		}
+
+		if( ! suspend( newPos )) {
+
+			// No end: this is not an instruction, read it again as a mark-up
+			this.current = null;
+			this.offset = (int) (this.regionStart - this.base);
+			analyzeMarkup();
+			return this.current == null;
+		}
+
+		this.counter = questionMark ? 1 : 0;
+		return false;
+	}
+
+
+	/**
+	 * Reads a comment until "--&gt;".
+	 * @return true if the region is complete, false if it goes beyond the window
+	 */
+	private boolean scanComment() {
+
+		int newPos = this.offset;
+		int seq = this.counter;
+		while( seq != 3 && newPos < this.limit ) {
+
+			// Only '-' can start the end of the comment
+			if( seq == 0 && ( newPos = indexOf( '-', newPos )) == this.limit )
+				break;
+
+			char c = this.xml.charAt( newPos ++ );
+			seq = c == '-' && seq < 2 || c == '>' && seq == 2 ? seq + 1 : 0;
+		}
+
+		this.counter = seq;
+		if( seq != 3 && suspend( newPos ))
+			return false;
+
+		return addRegion( XmlRegionType.COMMENT, this.regionStart, newPos );
+	}
+
+
+	/**
+	 * Reads a CDATA section until "]]&gt;".
+	 * @return true if the region is complete, false if it goes beyond the window
+	 */
+	private boolean scanCData() {
+
+		int newPos = this.offset;
+		int cpt = this.counter;
+		while( cpt != 3 && newPos < this.limit ) {
+
+			// Only ']' can start the end of the section
+			if( cpt == 0 && ( newPos = indexOf( ']', newPos )) == this.limit )
+				break;
+
+			char c = this.xml.charAt( newPos ++ );
+			if( cpt < 2 && c == ']'
+					|| cpt == 2 && c == '>' )
+				cpt ++;
+			else
+				cpt = 0;
+		}
+
+		this.counter = cpt;
+		if( cpt != 3 && suspend( newPos ))
+			return false;
+
+		return addRegion( XmlRegionType.CDATA, this.regionStart, newPos );
+	}
+
+
+	/**
+	 * Reads a mark-up name until a white space or '&gt;'.
+	 * @return true if the region is complete, false if it goes beyond the window
+	 */
+	private boolean scanMarkup() {
+
+		int newPos = this.offset;
+		char c = '!';
+		while( newPos < this.limit
+				&& (c = this.xml.charAt( newPos)) != '>'
+				&& ! Character.isWhitespace( c ))
+			newPos ++;
+
+		if( suspend( newPos ))
+			return false;
+
+		if( c == '>' )
+			newPos ++;
+
+		return addRegion( XmlRegionType.MARKUP, this.regionStart, newPos );
+	}
+
+
+	/**
+	 * Reads an attribute name.
+	 * @return true if the region is complete, false if it goes beyond the window
+	 */
+	private boolean scanAttribute() {
+
+		int newPos = this.offset;
+		while( newPos < this.limit
+				&& ! isAttributeDelimiter( this.xml.charAt( newPos )))
+			newPos ++;
+
+		if( suspend( newPos ))
+			return false;
+
+		return addRegion( XmlRegionType.ATTRIBUTE, this.regionStart, newPos );
+	}
+
+
+	/**
+	 * Reads an attribute value until the second unescaped quote.
+	 * @return true if the region is complete, false if it goes beyond the window
+	 */
+	private boolean scanAttributeValue() {
+
+		int newPos = this.offset;
+		int cpt = this.counter;
+		char previous = this.previous;
+		while( cpt != 2 && newPos < this.limit ) {
+			char c = this.xml.charAt( newPos ++ );
+			if( previous != '\\' && c == '"' )
+				cpt ++;
+
+			previous = c;
+		}
+
+		this.counter = cpt;
+		this.previous = previous;
+		if( cpt != 2 && suspend( newPos ))
+			return false;
+
+		return addRegion( XmlRegionType.ATTRIBUTE_VALUE, this.regionStart, newPos );
+	}
+
+
+	/**
+	 * Reads a mark-up value until '&lt;'.
+	 * @return true if the region is complete, false if it goes beyond the window
+	 */
+	private boolean scanMarkupValue() {
+
+		int newPos = indexOf( '<', this.offset );
+		if( suspend( newPos ))
+			return false;
+
+		return addRegion( XmlRegionType.MARKUP_VALUE, this.regionStart, newPos );
+	}
+
+
+	/**
+	 * Reads white spaces.
+	 * @return true if the region is complete, false if it goes beyond the window
+	 */
+	private boolean scanWhitespaces() {
+
+		int i = skipWhitespaces( this.offset );
+
+		if( suspend( i ))
+			return false;
+
+		flushWhitespaces();
+		this.whitespaceStart = this.regionStart;
+		this.whitespaceEnd = position( i );
+		this.offset = i;
+		this.current = null;
+		return true;
+	}
+
+
+	/**
+	 * Reads everything until the end of the document.
+	 * @return true if the region is complete, false if it goes beyond the window
+	 */
+	private boolean scanUnexpected() {
+		if( suspend( this.limit ))
+			return false;
+
+		return addRegion( XmlRegionType.UNEXPECTED, this.regionStart, this.limit );
+	}
+
+
+	/**
+	 * Starts reading a region.
+	 * @param xmlRegionType the region type
+	 * @param newPos the position where the reading starts
+	 */
+	private void startRegion( XmlRegionType xmlRegionType, int newPos ) {
+		this.current = xmlRegionType;
+		this.regionStart = position( this.offset );
+		this.offset = newPos;
+	}
+
+
+	/**
+	 * Suspends the reading of a region if the end of the window was reached.
+	 * @param newPos the position where the reading stopped
+	 * @return true if the region was suspended, false if it can be completed
+	 */
+	private boolean suspend( int newPos ) {
+
+		boolean result = newPos == this.limit && ! this.eof;
+		if( result )
+			this.offset = newPos;
+
+		return result;
+	}
+
+
+	/**
+	 * Stores a region, after the pending white spaces (if any), and moves the cursor after it.
+	 * @param xmlRegionType the region type
+	 * @param start the start position (included)
+	 * @param newPos the index of the region's end in the window (excluded)
+	 * @return true
+	 */
+	private boolean addRegion( XmlRegionType xmlRegionType, long start, int newPos ) {
+
+		flushWhitespaces();
+		this.handler.onRegion( xmlRegionType, start, position( newPos ));
+
+		this.context = XmlLexicalContext.after( xmlRegionType, this.xml.charAt( newPos - 1 ));
+		this.offset = newPos;
+		this.current = null;
+		return true;
+	}
+
+
+	/**
+	 * Stores the pending white spaces (if any).
+	 */
+	private void flushWhitespaces() {
+
+		if( this.whitespaceStart != -1 ) {
+			this.handler.onRegion( XmlRegionType.WHITESPACE, this.whitespaceStart, this.whitespaceEnd );
+			this.whitespaceStart = -1;
+		}
+	}
+
+
+	/**
+	 * @param index an index in the window
+	 * @return the position in the document
+	 */
+	private long position( int index ) {
+		return this.base + index;
+	}
+
+
+	/**
+	 * Finds the next occurrence of an ASCII character in the window.
+	 * @param c the character to find
+	 * @param from the index to start from
+	 * @return the index of the first occurrence, or the limit of the window if there is none
+	 */
+	private int indexOf( char c, int from ) {
+
+		int result;
+		if( this.string != null ) {
+			result = this.string.indexOf( c, from );
+			if( result < 0 || result > this.limit )
+				result = this.limit;
+
+		} else if( this.chars != null ) {
+			result = this.scanner.indexOf( this.chars, this.arrayOffset + from, this.arrayOffset + this.limit, c ) - this.arrayOffset;
+
+		} else if( this.bytes != null ) {
+			result = this.scanner.indexOf( this.bytes, this.arrayOffset + from, this.arrayOffset + this.limit, (byte) c ) - this.arrayOffset;
+
+		} else {
+			result = from;
+			while( result < this.limit && this.xml.charAt( result ) != c )
+				result ++;
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Skips the white spaces of the window.
+	 * @param from the index to start from
+	 * @return the index of the first character that is not a white space, or the limit of the window if there is none
+	 */
+	private int skipWhitespaces( int from ) {
+
+		int i = from;
+		while( i < this.limit ) {
+
+			// ASCII white spaces are skipped quickly, the others one by one
+			if( this.chars != null )
+				i = this.scanner.skipWhitespaces( this.chars, this.arrayOffset + i, this.arrayOffset + this.limit ) - this.arrayOffset;
+			else if( this.bytes != null )
+				i = this.scanner.skipWhitespaces( this.bytes, this.arrayOffset + i, this.arrayOffset + this.limit ) - this.arrayOffset;
+
+			if( i < this.limit && Character.isWhitespace( this.xml.charAt( i )))
+				i ++;
+			else
+				break;
+		}
+
+		return i;
+	}
+
+
+	/**
+	 * @param c a character
+	 * @return true if this character ends an attribute name
+	 */
+	private static boolean isAttributeDelimiter( char c ) {
+		return c == '=' || c == '/' || c == '>' || Character.isWhitespace( c );
+	}
+}
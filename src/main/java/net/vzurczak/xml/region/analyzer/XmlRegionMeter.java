@@ -0,0 +1,120 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * A handler that measures an analysis before notifying another handler.
+ * <p>
+ * It is only created when a {@link XmlRegionMetricsListener} was set on the analyzer,
+ * or when a profiler records the {@link XmlRegionEvents events} of the analyses.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+final class XmlRegionMeter implements XmlRegionHandler {
+
+	private static final int TYPE_COUNT = XmlRegionType.values().length;
+
+	private final XmlRegionHandler handler;
+	private final XmlRegionMetricsListener listener, eventListener;
+	private final long oversizedRegionSize;
+	private final long startTime = System.nanoTime();
+	private final long[] regionCounts = new long[ TYPE_COUNT ];
+	private final long[] largestRegionSizes = new long[ TYPE_COUNT ];
+	private XmlRegionType lastType;
+	private long length;
+
+
+	/**
+	 * Constructor.
+	 * @param handler the handler to notify
+	 * @param listener the listener set on the analyzer (can be null)
+	 * @param eventListener the listener that emits events (can be null)
+	 * @param oversizedRegionSize the minimal size of the regions to report as events
+	 */
+	private XmlRegionMeter( XmlRegionHandler handler, XmlRegionMetricsListener listener, XmlRegionMetricsListener eventListener, long oversizedRegionSize ) {
+		this.handler = handler;
+		this.listener = listener;
+		this.eventListener = eventListener;
+		this.oversizedRegionSize = oversizedRegionSize;
+	}
+
+
+	/**
+	 * Creates a meter for an analysis, if necessary.
+	 * @param handler the handler to notify
+	 * @param listener the listener set on the analyzer (can be null)
+	 * @return a meter, or null if the analysis does not need to be measured
+	 */
+	static XmlRegionMeter create( XmlRegionHandler handler, XmlRegionMetricsListener listener ) {
+
+		XmlRegionEvents events = XmlRegionEvents.DEFAULT;
+		XmlRegionMetricsListener eventListener = events.begin();
+		long oversizedRegionSize = events.getOversizedRegionSize();
+
+		XmlRegionMeter result = null;
+		if( listener != null || eventListener != null || oversizedRegionSize != Long.MAX_VALUE )
+			result = new XmlRegionMeter( handler, listener, eventListener, oversizedRegionSize );
+
+		return result;
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.vzurczak.xml.region.analyzer.XmlRegionHandler
+	 * #onRegion(net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType, long, long)
+	 */
+	@Override
+	public void onRegion( XmlRegionType xmlRegionType, long start, long end ) {
+
+		int type = xmlRegionType.ordinal();
+		long size = end - start;
+		this.regionCounts[ type ] ++;
+		if( size > this.largestRegionSizes[ type ])
+			this.largestRegionSizes[ type ] = size;
+
+		if( size >= this.oversizedRegionSize )
+			XmlRegionEvents.DEFAULT.onOversizedRegion( xmlRegionType, start, end );
+
+		this.lastType = xmlRegionType;
+		this.length = end;
+		this.handler.onRegion( xmlRegionType, start, end );
+	}
+
+
+	/**
+	 * Notifies the listeners of the measures.
+	 */
+	void publish() {
+
+		long duration = System.nanoTime() - this.startTime;
+		boolean endsWithUnexpectedRegion = this.lastType == XmlRegionType.UNEXPECTED;
+		XmlRegionMetrics metrics = new XmlRegionMetrics( this.length, duration, this.regionCounts, this.largestRegionSizes, endsWithUnexpectedRegion );
+
+		if( this.listener != null )
+			this.listener.onAnalysis( metrics );
+
+		if( this.eventListener != null )
+			this.eventListener.onAnalysis( metrics );
+	}
+}
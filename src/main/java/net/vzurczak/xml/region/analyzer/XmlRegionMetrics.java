@@ -0,0 +1,151 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.util.Arrays;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * The measures of an analysis.
+ * <p>
+ * Sizes are counted in characters, or in bytes for documents encoded in UTF-8
+ * (i.e. in the unit of the positions of the regions). Metrics are immutable.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ * @version 1.0 (tag version)
+ */
+public final class XmlRegionMetrics {
+
+	private final long length;
+	private final long durationNanos;
+	private final long[] regionCounts;
+	private final long[] largestRegionSizes;
+	private final boolean endsWithUnexpectedRegion;
+
+
+	/**
+	 * Constructor.
+	 * @param length the size of the analyzed document
+	 * @param durationNanos the duration of the analysis, in nanoseconds
+	 * @param regionCounts the number of regions, indexed by the ordinals of the region types
+	 * @param largestRegionSizes the size of the largest regions, indexed by the ordinals of the region types
+	 * @param endsWithUnexpectedRegion true if the last region is an unexpected one
+	 */
+	XmlRegionMetrics( long length, long durationNanos, long[] regionCounts, long[] largestRegionSizes, boolean endsWithUnexpectedRegion ) {
+		this.length = length;
+		this.durationNanos = durationNanos;
+		this.regionCounts = regionCounts;
+		this.largestRegionSizes = largestRegionSizes;
+		this.endsWithUnexpectedRegion = endsWithUnexpectedRegion;
+	}
+
+
+	/**
+	 * @return the size of the analyzed document
+	 */
+	public long getLength() {
+		return this.length;
+	}
+
+
+	/**
+	 * @return the duration of the analysis (including the time spent in the handler), in nanoseconds
+	 */
+	public long getDurationNanos() {
+		return this.durationNanos;
+	}
+
+
+	/**
+	 * @return the number of regions
+	 */
+	public long getRegionCount() {
+
+		long result = 0;
+		for( long count : this.regionCounts )
+			result += count;
+
+		return result;
+	}
+
+
+	/**
+	 * @param xmlRegionType a region type
+	 * @return the number of regions of this type
+	 */
+	public long getRegionCount( XmlRegionType xmlRegionType ) {
+		return this.regionCounts[ xmlRegionType.ordinal()];
+	}
+
+
+	/**
+	 * @return the number of {@link XmlRegionType#UNEXPECTED} regions
+	 */
+	public long getUnexpectedRegionCount() {
+		return getRegionCount( XmlRegionType.UNEXPECTED );
+	}
+
+
+	/**
+	 * @return true if the last region of the document is an unexpected one (e.g. a truncated document)
+	 */
+	public boolean endsWithUnexpectedRegion() {
+		return this.endsWithUnexpectedRegion;
+	}
+
+
+	/**
+	 * @return the size of the largest region
+	 */
+	public long getLargestRegionSize() {
+
+		long result = 0;
+		for( long size : this.largestRegionSizes )
+			result = Math.max( result, size );
+
+		return result;
+	}
+
+
+	/**
+	 * @param xmlRegionType a region type
+	 * @return the size of the largest region of this type (0 if there is none)
+	 */
+	public long getLargestRegionSize( XmlRegionType xmlRegionType ) {
+		return this.largestRegionSizes[ xmlRegionType.ordinal()];
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object
+	 * #toString()
+	 */
+	@Override
+	public String toString() {
+		return "Length: " + this.length
+				+ ", Duration (ns): " + this.durationNanos
+				+ ", Regions: " + Arrays.toString( this.regionCounts )
+				+ ", Largest regions: " + Arrays.toString( this.largestRegionSizes )
+				+ ", Ends with an unexpected region: " + this.endsWithUnexpectedRegion;
+	}
+}
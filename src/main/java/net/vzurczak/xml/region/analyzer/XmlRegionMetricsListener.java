@@ -0,0 +1,40 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+/**
+ * A listener that is notified of the measures of every analysis.
+ * <p>
+ * It is invoked by the thread that performed the analysis, once it is complete.
+ * An analyzer can be shared by several threads: listeners must be thread-safe.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ * @version 1.0 (tag version)
+ * @see XmlRegionStatistics
+ */
+public interface XmlRegionMetricsListener {
+
+	/**
+	 * Notifies an analysis is complete.
+	 * @param metrics the measures of the analysis
+	 */
+	void onAnalysis( XmlRegionMetrics metrics );
+}
@@ -0,0 +1,333 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * Analyzes a document in parallel.
+ * <p>
+ * The document is split into chunks that start right after a '&gt;'. Every chunk is analyzed
+ * by its own lexer, as if this character ended a mark-up, which is the most likely case.
+ * A chunk is analyzed until a region reaches the beginning of the next chunk.
+ * </p>
+ * <p>
+ * The chunks are then stitched together, in order. When the previous chunk really ends
+ * at the beginning of a chunk, in the same lexical context (after a mark-up or a comment),
+ * the guess was right and its regions are kept.
+ * Otherwise, the document is analyzed again from the end of the previous chunk, until a region
+ * is also one of the speculative regions. From there, the lexer would find the same regions
+ * than the speculative lexer, so these are kept. The result is the same than a sequential analysis.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+final class XmlRegionParallelLexer {
+
+	/**
+	 * The minimal size of a chunk, in characters.
+	 */
+	static final int MIN_CHUNK_SIZE = 64 * 1024;
+
+
+	/**
+	 * Private constructor.
+	 */
+	private XmlRegionParallelLexer() {
+		// nothing
+	}
+
+
+	/**
+	 * Analyzes a document in parallel.
+	 * @param xml the XML text
+	 * @param handler the handler to notify (from the current thread, in the order of the document)
+	 * @param pool the pool that analyzes the chunks
+	 * @param chunkSize the minimal size of a chunk
+	 */
+	static void analyze( CharSequence xml, XmlRegionHandler handler, ForkJoinPool pool, int chunkSize ) {
+
+		// Small documents are analyzed sequentially
+		Chunk[] chunks = split( xml, Math.max( chunkSize, xml.length() / (4 * pool.getParallelism()) + 1 ));
+		if( chunks.length < 2 ) {
+			new XmlRegionLexer( handler ).analyze( xml );
+			return;
+		}
+
+		pool.invoke( new ChunkTask( xml, chunks, 0, chunks.length ));
+		stitch( xml, chunks, handler );
+	}
+
+
+	/**
+	 * Splits a document into chunks.
+	 * @param xml the XML text
+	 * @param chunkSize the minimal size of a chunk
+	 * @return a non-null array of chunks
+	 */
+	private static Chunk[] split( CharSequence xml, int chunkSize ) {
+
+		List<Chunk> chunks = new ArrayList<> ();
+		int start = 0;
+		while( start < xml.length()) {
+
+			// The next chunk starts after a '>'
+			int next = start + chunkSize;
+			while( next < xml.length() && xml.charAt( next - 1 ) != '>' )
+				next ++;
+
+			chunks.add( new Chunk( start, next < xml.length() ? next : Integer.MAX_VALUE ));
+			start = next;
+		}
+
+		return chunks.toArray( new Chunk[ chunks.size()]);
+	}
+
+
+	/**
+	 * Notifies the regions of all the chunks, after fixing those whose guess was wrong.
+	 * @param xml the XML text
+	 * @param chunks the analyzed chunks
+	 * @param handler the handler to notify
+	 */
+	private static void stitch( CharSequence xml, Chunk[] chunks, XmlRegionHandler handler ) {
+
+		chunks[ 0 ].notify( handler, 0 );
+		for( int index = 0; index + 1 < chunks.length; ) {
+
+			// Last region of the current chunk (it is never made up of white spaces, except at the end)
+			XmlRegionBuffer regions = chunks[ index ].regions;
+			int last = regions.size() - 1;
+			int end = regions.getEnd( last );
+			if( end >= xml.length())
+				break;
+
+			XmlLexicalContext context = XmlLexicalContext.after( regions.getXmlRegionType( last ), xml.charAt( end - 1 ));
+
+			// The guess was right
+			if( end == chunks[ index + 1 ].start && context == XmlLexicalContext.CONTENT ) {
+				index ++;
+				chunks[ index ].notify( handler, 0 );
+				continue;
+			}
+
+			// Otherwise, analyze the document until we find speculative regions again
+			Resync resync = new Resync( chunks, index + 1, handler );
+			resync.lexer.setWindow( xml );
+			resync.lexer.update( xml.length(), true );
+			resync.lexer.restartAt( end, context );
+			resync.lexer.analyze();
+			if( ! resync.matched )
+				break;
+
+			index = resync.chunkIndex;
+			chunks[ index ].notify( handler, resync.regionIndex );
+		}
+	}
+
+
+	/**
+	 * A chunk of the document.
+	 * @author Vincent Zurczak
+	 */
+	private static final class Chunk implements XmlRegionHandler {
+
+		final int start, next;
+		final XmlRegionBuffer regions = new XmlRegionBuffer();
+		private XmlRegionLexer lexer;
+
+
+		/**
+		 * Constructor.
+		 * @param start the start position of the chunk
+		 * @param next the start position of the next chunk
+		 */
+		Chunk( int start, int next ) {
+			this.start = start;
+			this.next = next;
+		}
+
+
+		/**
+		 * Analyzes the chunk.
+		 * @param xml the XML text
+		 */
+		void analyze( CharSequence xml ) {
+
+			this.lexer = new XmlRegionLexer( this );
+			this.lexer.setWindow( xml );
+			this.lexer.update( xml.length(), true );
+			if( this.start > 0 )
+				this.lexer.restartAt( this.start, XmlLexicalContext.CONTENT );
+
+			this.lexer.analyze();
+			this.lexer = null;
+		}
+
+
+		/**
+		 * Notifies the regions of this chunk.
+		 * @param handler the handler to notify
+		 * @param from the index of the first region to notify
+		 */
+		void notify( XmlRegionHandler handler, int from ) {
+			for( int i=from; i<this.regions.size(); i++ )
+				handler.onRegion( this.regions.getXmlRegionType( i ), this.regions.getStart( i ), this.regions.getEnd( i ));
+		}
+
+
+		/*
+		 * (non-Javadoc)
+		 * @see net.vzurczak.xml.region.analyzer.XmlRegionHandler
+		 * #onRegion(net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType, long, long)
+		 */
+		@Override
+		public void onRegion( XmlRegionType xmlRegionType, long start, long end ) {
+
+			this.regions.add( xmlRegionType, (int) start, (int) end );
+			if( xmlRegionType != XmlRegionType.WHITESPACE && end >= this.next )
+				this.lexer.stop();
+		}
+	}
+
+
+	/**
+	 * A handler that notifies regions until they match speculative ones.
+	 * <p>
+	 * White spaces are notified before the next region is complete: they cannot be used to resynchronize.
+	 * </p>
+	 *
+	 * @author Vincent Zurczak
+	 */
+	private static final class Resync implements XmlRegionHandler {
+
+		final XmlRegionLexer lexer = new XmlRegionLexer( this );
+		private final Chunk[] chunks;
+		private final XmlRegionHandler handler;
+
+		int chunkIndex, regionIndex;
+		boolean matched;
+
+
+		/**
+		 * Constructor.
+		 * @param chunks the chunks
+		 * @param chunkIndex the index of the first chunk whose regions may match
+		 * @param handler the handler to notify
+		 */
+		Resync( Chunk[] chunks, int chunkIndex, XmlRegionHandler handler ) {
+			this.chunks = chunks;
+			this.chunkIndex = chunkIndex;
+			this.handler = handler;
+		}
+
+
+		/*
+		 * (non-Javadoc)
+		 * @see net.vzurczak.xml.region.analyzer.XmlRegionHandler
+		 * #onRegion(net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType, long, long)
+		 */
+		@Override
+		public void onRegion( XmlRegionType xmlRegionType, long start, long end ) {
+
+			if( xmlRegionType != XmlRegionType.WHITESPACE ) {
+
+				// Find the first speculative region that does not start before this one
+				while( this.chunkIndex < this.chunks.length ) {
+					XmlRegionBuffer regions = this.chunks[ this.chunkIndex ].regions;
+					while( this.regionIndex < regions.size() && regions.getStart( this.regionIndex ) < start )
+						this.regionIndex ++;
+
+					if( this.regionIndex < regions.size())
+						break;
+
+					this.chunkIndex ++;
+					this.regionIndex = 0;
+				}
+
+				// Is it the same region?
+				if( this.chunkIndex < this.chunks.length ) {
+					XmlRegionBuffer regions = this.chunks[ this.chunkIndex ].regions;
+					if( regions.getStart( this.regionIndex ) == start
+							&& regions.getEnd( this.regionIndex ) == end
+							&& regions.getXmlRegionType( this.regionIndex ) == xmlRegionType ) {
+						this.matched = true;
+						this.lexer.stop();
+						return;
+					}
+				}
+			}
+
+			this.handler.onRegion( xmlRegionType, start, end );
+		}
+	}
+
+
+	/**
+	 * A task that analyzes a range of chunks.
+	 * @author Vincent Zurczak
+	 */
+	private static final class ChunkTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final transient CharSequence xml;
+		private final transient Chunk[] chunks;
+		private final int from, to;
+
+
+		/**
+		 * Constructor.
+		 * @param xml the XML text
+		 * @param chunks the chunks
+		 * @param from the index of the first chunk to analyze (included)
+		 * @param to the index of the last chunk to analyze (excluded)
+		 */
+		ChunkTask( CharSequence xml, Chunk[] chunks, int from, int to ) {
+			this.xml = xml;
+			this.chunks = chunks;
+			this.from = from;
+			this.to = to;
+		}
+
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.util.concurrent.RecursiveAction
+		 * #compute()
+		 */
+		@Override
+		protected void compute() {
+
+			if( this.to - this.from == 1 ) {
+				this.chunks[ this.from ].analyze( this.xml );
+
+			} else {
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(
+						new ChunkTask( this.xml, this.chunks, this.from, middle ),
+						new ChunkTask( this.xml, this.chunks, middle, this.to ));
+			}
+		}
+	}
+}
@@ -0,0 +1,134 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+/**
+ * Finds delimiters in arrays of characters or bytes.
+ * <p>
+ * This implementation reads one element at a time. On Java 17 and later,
+ * when the <code>jdk.incubator.vector</code> module is available, a subclass reads
+ * several elements at once (it is shipped in the multi-release JAR).
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+class XmlRegionScanner {
+
+	/**
+	 * The fastest available scanner.
+	 */
+	static final XmlRegionScanner DEFAULT = create();
+
+
+	/**
+	 * @return the vector scanner if it is available, a scalar scanner otherwise
+	 */
+	private static XmlRegionScanner create() {
+
+		XmlRegionScanner result;
+		try {
+			result = (XmlRegionScanner) Class.forName( "net.vzurczak.xml.region.analyzer.VectorXmlRegionScanner" ).newInstance();
+
+		} catch( Exception | LinkageError e ) {
+			// Older JVM, or the module was not added (--add-modules jdk.incubator.vector)
+			result = new XmlRegionScanner();
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Finds a character.
+	 * @param chars an array
+	 * @param from the index to start from (included)
+	 * @param to the index to stop at (excluded)
+	 * @param c the character to find
+	 * @return the index of the first occurrence of <code>c</code>, or <code>to</code> if there is none
+	 */
+	int indexOf( char[] chars, int from, int to, char c ) {
+
+		int i = from;
+		while( i < to && chars[ i ] != c )
+			i ++;
+
+		return i;
+	}
+
+
+	/**
+	 * Finds an ASCII character.
+	 * @param bytes an array
+	 * @param from the index to start from (included)
+	 * @param to the index to stop at (excluded)
+	 * @param b the character to find
+	 * @return the index of the first occurrence of <code>b</code>, or <code>to</code> if there is none
+	 */
+	int indexOf( byte[] bytes, int from, int to, byte b ) {
+
+		int i = from;
+		while( i < to && bytes[ i ] != b )
+			i ++;
+
+		return i;
+	}
+
+
+	/**
+	 * Skips ASCII white spaces.
+	 * @param chars an array
+	 * @param from the index to start from (included)
+	 * @param to the index to stop at (excluded)
+	 * @return the index of the first character that is not an ASCII white space, or <code>to</code> if there is none
+	 */
+	int skipWhitespaces( char[] chars, int from, int to ) {
+
+		int i = from;
+		while( i < to && isAsciiWhitespace( chars[ i ]))
+			i ++;
+
+		return i;
+	}
+
+
+	/**
+	 * Skips ASCII white spaces.
+	 * @param bytes an array
+	 * @param from the index to start from (included)
+	 * @param to the index to stop at (excluded)
+	 * @return the index of the first byte that is not an ASCII white space, or <code>to</code> if there is none
+	 */
+	int skipWhitespaces( byte[] bytes, int from, int to ) {
+
+		int i = from;
+		while( i < to && isAsciiWhitespace((char) bytes[ i ]))
+			i ++;
+
+		return i;
+	}
+
+
+	/**
+	 * @param c a character
+	 * @return true if it is an ASCII character and {@link Character#isWhitespace(char)} returns true
+	 */
+	static boolean isAsciiWhitespace( char c ) {
+		return c >= 9 && c <= 13 || c >= 28 && c <= 32;
+	}
+}
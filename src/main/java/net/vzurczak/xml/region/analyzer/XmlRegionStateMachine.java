@@ -0,0 +1,438 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * A lexical analyzer built as a table-driven finite state machine.
+ * <p>
+ * Every character is mapped to a class (white space, '&lt;', '&gt;', '=', etc).
+ * The current state and this class give, through a single table, the next state
+ * and what to do with the region being read. Characters are read once, in a single
+ * forward pass: the {@link XmlLexicalContext} (in a mark-up, after an attribute, in a text node...)
+ * is part of the state, it is never inferred from the previous regions.
+ * </p>
+ * <p>
+ * It finds the same regions than {@link XmlRegionLexer}, including for invalid documents.
+ * It only analyzes whole texts. Like {@link XmlRegionLexer}, it must not be shared.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ * @version 1.0 (tag version)
+ */
+final class XmlRegionStateMachine {
+
+	// Character classes
+	private static final int C_WHITESPACE = 0;
+	private static final int C_LT = 1;
+	private static final int C_GT = 2;
+	private static final int C_SLASH = 3;
+	private static final int C_EQUALS = 4;
+	private static final int C_QUOTE = 5;
+	private static final int C_BACKSLASH = 6;
+	private static final int C_QUESTION_MARK = 7;
+	private static final int C_EXCLAMATION_MARK = 8;
+	private static final int C_DASH = 9;
+	private static final int C_OPENING_BRACKET = 10;
+	private static final int C_CLOSING_BRACKET = 11;
+	private static final int C_LETTER_C = 12;
+	private static final int C_LETTER_D = 13;
+	private static final int C_LETTER_A = 14;
+	private static final int C_LETTER_T = 15;
+	private static final int C_OTHER = 16;
+	private static final int C_EOF = 17;
+	private static final int CLASS_COUNT = 18;
+
+	// States between two regions: one per lexical context, with the same index
+	private static final XmlLexicalContext[] CONTEXTS = XmlLexicalContext.values();
+	private static final int CONTEXT_COUNT = CONTEXTS.length;
+	private static final int S_START = XmlLexicalContext.START.ordinal();
+	private static final int S_IN_TAG = XmlLexicalContext.IN_TAG.ordinal();
+	private static final int S_AFTER_ATTRIBUTE = XmlLexicalContext.AFTER_ATTRIBUTE.ordinal();
+	private static final int S_AFTER_ATTRIBUTE_VALUE = XmlLexicalContext.AFTER_ATTRIBUTE_VALUE.ordinal();
+	private static final int S_CONTENT = XmlLexicalContext.CONTENT.ordinal();
+	private static final int S_OTHER = XmlLexicalContext.OTHER.ordinal();
+
+	// White spaces, one state per lexical context (they do not change it)
+	private static final int S_WHITESPACE = CONTEXT_COUNT;
+
+	// "<", "<!", "<!-", "<![", "<![C", "<![CD", "<![CDA", "<![CDAT", "<![CDATA"
+	private static final int S_LT = 2 * CONTEXT_COUNT;
+	private static final int S_LT_EXCLAMATION = S_LT + 1;
+	private static final int S_LT_EXCLAMATION_DASH = S_LT + 2;
+	private static final int S_CDATA_PREFIX = S_LT + 3;
+
+	// The regions themselves
+	private static final int S_INSTRUCTION = S_CDATA_PREFIX + 6;
+	private static final int S_INSTRUCTION_QUESTION_MARK = S_INSTRUCTION + 1;
+	private static final int S_COMMENT = S_INSTRUCTION + 2;
+	private static final int S_CDATA = S_COMMENT + 3;
+	private static final int S_MARKUP = S_CDATA + 3;
+	private static final int S_ATTRIBUTE = S_MARKUP + 1;
+	private static final int S_ATTRIBUTE_VALUE = S_ATTRIBUTE + 1;
+	private static final int S_MARKUP_VALUE = S_ATTRIBUTE_VALUE + 4;
+	private static final int S_SLASH_IN_TEXT = S_MARKUP_VALUE + 1;
+	private static final int S_SLASH = S_SLASH_IN_TEXT + 1;
+	private static final int S_UNEXPECTED = S_SLASH + 1;
+	private static final int STATE_COUNT = S_UNEXPECTED + 1;
+
+	// A transition: the next state, actions and the type of the region to notify
+	private static final int STATE_MASK = 0xFF;
+	private static final int BEGIN = 1 << 8;
+	private static final int ABSORB = 1 << 9;
+	private static final int HOLD = 1 << 10;
+	private static final int EMIT = 1 << 11;
+	private static final int REWIND = 1 << 12;
+	private static final int TYPE_SHIFT = 16;
+
+	private static final XmlRegionType[] TYPES = XmlRegionType.values();
+	private static final byte[] ASCII_CLASSES = new byte[ 128 ];
+	private static final int[] TRANSITIONS = new int[ STATE_COUNT * CLASS_COUNT ];
+
+	static {
+		initializeClasses();
+		initializeTransitions();
+	}
+
+	private final XmlRegionHandler handler;
+
+	// White spaces are kept aside until we know whether they start a mark-up value
+	private int whitespaceStart = -1;
+	private int whitespaceEnd;
+
+
+	/**
+	 * Constructor.
+	 * @param handler the handler to notify when a region is found
+	 */
+	XmlRegionStateMachine( XmlRegionHandler handler ) {
+		this.handler = handler;
+	}
+
+
+	/**
+	 * Analyzes a whole XML text.
+	 * @param xml the XML text (may be an invalid XML document)
+	 */
+	void analyze( CharSequence xml ) {
+
+		final int[] transitions = TRANSITIONS;
+		final int length = xml.length();
+		int state = S_START;
+		int regionStart = 0;
+		int i = 0;
+
+		for( ;; ) {
+			int charClass;
+			if( i < length ) {
+				char c = xml.charAt( i );
+				if( c < 128 )
+					charClass = ASCII_CLASSES[ c ];
+				else
+					charClass = Character.isWhitespace( c ) ? C_WHITESPACE : C_OTHER;
+
+			} else {
+				charClass = C_EOF;
+			}
+
+			int transition = transitions[ state * CLASS_COUNT + charClass ];
+			state = transition & STATE_MASK;
+
+			// Most characters do not change anything but the state
+			if( transition <= STATE_MASK ) {
+				i ++;
+				continue;
+			}
+
+			if(( transition & BEGIN ) != 0 )
+				regionStart = i;
+
+			// White spaces right before are part of the mark-up value
+			if(( transition & ABSORB ) != 0 && this.whitespaceStart != -1 ) {
+				regionStart = this.whitespaceStart;
+				this.whitespaceStart = -1;
+			}
+
+			if(( transition & HOLD ) == 0 )
+				i ++;
+
+			if(( transition & EMIT ) != 0 )
+				emit( TYPES[ transition >>> TYPE_SHIFT ], regionStart, i );
+
+			// An instruction that is never closed is read again as a mark-up
+			if(( transition & REWIND ) != 0 )
+				i = regionStart;
+			else if( charClass == C_EOF )
+				break;
+		}
+
+		flushWhitespaces();
+	}
+
+
+	/**
+	 * Notifies a region, after the pending white spaces (if any).
+	 * <p>
+	 * White spaces are only kept aside.
+	 * </p>
+	 *
+	 * @param xmlRegionType the region type
+	 * @param start the start position (included)
+	 * @param end the end position (excluded)
+	 */
+	private void emit( XmlRegionType xmlRegionType, int start, int end ) {
+
+		if( xmlRegionType == XmlRegionType.WHITESPACE ) {
+			this.whitespaceStart = start;
+			this.whitespaceEnd = end;
+
+		} else {
+			flushWhitespaces();
+			this.handler.onRegion( xmlRegionType, start, end );
+		}
+	}
+
+
+	/**
+	 * Notifies the pending white spaces (if any).
+	 */
+	private void flushWhitespaces() {
+
+		if( this.whitespaceStart != -1 ) {
+			this.handler.onRegion( XmlRegionType.WHITESPACE, this.whitespaceStart, this.whitespaceEnd );
+			this.whitespaceStart = -1;
+		}
+	}
+
+
+	/**
+	 * Initializes the classes of ASCII characters.
+	 */
+	private static void initializeClasses() {
+
+		for( char c = 0; c < ASCII_CLASSES.length; c ++ )
+			ASCII_CLASSES[ c ] = (byte) (XmlRegionScanner.isAsciiWhitespace( c ) ? C_WHITESPACE : C_OTHER);
+
+		ASCII_CLASSES[ '<' ] = C_LT;
+		ASCII_CLASSES[ '>' ] = C_GT;
+		ASCII_CLASSES[ '/' ] = C_SLASH;
+		ASCII_CLASSES[ '=' ] = C_EQUALS;
+		ASCII_CLASSES[ '"' ] = C_QUOTE;
+		ASCII_CLASSES[ '\\' ] = C_BACKSLASH;
+		ASCII_CLASSES[ '?' ] = C_QUESTION_MARK;
+		ASCII_CLASSES[ '!' ] = C_EXCLAMATION_MARK;
+		ASCII_CLASSES[ '-' ] = C_DASH;
+		ASCII_CLASSES[ '[' ] = C_OPENING_BRACKET;
+		ASCII_CLASSES[ ']' ] = C_CLOSING_BRACKET;
+		ASCII_CLASSES[ 'C' ] = C_LETTER_C;
+		ASCII_CLASSES[ 'D' ] = C_LETTER_D;
+		ASCII_CLASSES[ 'A' ] = C_LETTER_A;
+		ASCII_CLASSES[ 'T' ] = C_LETTER_T;
+	}
+
+
+	/**
+	 * Initializes the transition table.
+	 */
+	private static void initializeTransitions() {
+
+		// Between two regions, the lexical context tells what may start
+		for( XmlLexicalContext lexicalContext : CONTEXTS ) {
+			int context = lexicalContext.ordinal();
+			int text = lexicalContext.allowsMarkupValue() ? S_MARKUP_VALUE | BEGIN | ABSORB : S_UNEXPECTED | BEGIN;
+
+			int other = lexicalContext.allowsAttribute() ? S_ATTRIBUTE | BEGIN : text;
+			int equals = lexicalContext.allowsAttributeValue() ? S_ATTRIBUTE_VALUE | BEGIN : text;
+			int slash = lexicalContext.allowsMarkupValue() ? S_SLASH_IN_TEXT : S_SLASH;
+
+			on( context, other, C_QUOTE, C_BACKSLASH, C_QUESTION_MARK, C_EXCLAMATION_MARK, C_DASH,
+					C_OPENING_BRACKET, C_CLOSING_BRACKET, C_LETTER_C, C_LETTER_D, C_LETTER_A, C_LETTER_T, C_OTHER );
+
+			on( context, equals, C_EQUALS );
+			on( context, slash | BEGIN, C_SLASH );
+			on( context, S_LT | BEGIN, C_LT );
+			on( context, emit( S_CONTENT, XmlRegionType.MARKUP ) | BEGIN, C_GT );
+			on( context, S_WHITESPACE + context | BEGIN, C_WHITESPACE );
+			on( context, context | HOLD, C_EOF );
+
+			// White spaces end with anything else
+			onOthers( S_WHITESPACE + context, before( context, XmlRegionType.WHITESPACE ));
+			on( S_WHITESPACE + context, S_WHITESPACE + context, C_WHITESPACE );
+			on( S_WHITESPACE + context, before( context, XmlRegionType.WHITESPACE ), C_EOF );
+		}
+
+		// "<": an instruction, a comment, a CDATA section or a mark-up
+		onOthers( S_LT, S_MARKUP );
+		on( S_LT, S_INSTRUCTION_QUESTION_MARK, C_QUESTION_MARK );
+		on( S_LT, S_LT_EXCLAMATION, C_EXCLAMATION_MARK );
+		on( S_LT, emit( S_CONTENT, XmlRegionType.MARKUP ), C_GT );
+		on( S_LT, before( S_IN_TAG, XmlRegionType.MARKUP ), C_WHITESPACE );
+		on( S_LT, before( S_OTHER, XmlRegionType.MARKUP ), C_EOF );
+
+		// "<!": a comment or a CDATA section, nothing else
+		onOthers( S_LT_EXCLAMATION, S_UNEXPECTED );
+		on( S_LT_EXCLAMATION, S_LT_EXCLAMATION_DASH, C_DASH );
+		on( S_LT_EXCLAMATION, S_CDATA_PREFIX, C_OPENING_BRACKET );
+		on( S_LT_EXCLAMATION, before( S_OTHER, XmlRegionType.UNEXPECTED ), C_EOF );
+
+		onOthers( S_LT_EXCLAMATION_DASH, S_UNEXPECTED );
+		on( S_LT_EXCLAMATION_DASH, S_COMMENT, C_DASH );
+		on( S_LT_EXCLAMATION_DASH, before( S_OTHER, XmlRegionType.UNEXPECTED ), C_EOF );
+
+		int[] cdata = { C_LETTER_C, C_LETTER_D, C_LETTER_A, C_LETTER_T, C_LETTER_A, C_OPENING_BRACKET };
+		for( int i = 0; i < cdata.length; i ++ ) {
+			onOthers( S_CDATA_PREFIX + i, S_UNEXPECTED );
+			on( S_CDATA_PREFIX + i, i == cdata.length - 1 ? S_CDATA : S_CDATA_PREFIX + i + 1, cdata[ i ]);
+			on( S_CDATA_PREFIX + i, before( S_OTHER, XmlRegionType.UNEXPECTED ), C_EOF );
+		}
+
+		// Instructions end with the first '>' that follows a '?'
+		onOthers( S_INSTRUCTION, S_INSTRUCTION );
+		on( S_INSTRUCTION, S_INSTRUCTION_QUESTION_MARK, C_QUESTION_MARK );
+		on( S_INSTRUCTION, S_MARKUP | HOLD | REWIND, C_EOF );
+
+		onOthers( S_INSTRUCTION_QUESTION_MARK, S_INSTRUCTION );
+		on( S_INSTRUCTION_QUESTION_MARK, S_INSTRUCTION_QUESTION_MARK, C_QUESTION_MARK );
+		on( S_INSTRUCTION_QUESTION_MARK, emit( S_OTHER, XmlRegionType.INSTRUCTION ), C_GT );
+		on( S_INSTRUCTION_QUESTION_MARK, S_MARKUP | HOLD | REWIND, C_EOF );
+
+		// Comments end with "-->", CDATA sections with "]]>"
+		sequence( S_COMMENT, C_DASH, S_CONTENT, XmlRegionType.COMMENT );
+		sequence( S_CDATA, C_CLOSING_BRACKET, S_OTHER, XmlRegionType.CDATA );
+
+		// Mark-up names end with a white space or with '>'
+		onOthers( S_MARKUP, S_MARKUP );
+		on( S_MARKUP, emit( S_CONTENT, XmlRegionType.MARKUP ), C_GT );
+		on( S_MARKUP, before( S_IN_TAG, XmlRegionType.MARKUP ), C_WHITESPACE );
+		on( S_MARKUP, before( S_OTHER, XmlRegionType.MARKUP ), C_EOF );
+
+		// Attribute names end with a delimiter
+		onOthers( S_ATTRIBUTE, S_ATTRIBUTE );
+		int attribute = before( S_AFTER_ATTRIBUTE, XmlRegionType.ATTRIBUTE );
+		on( S_ATTRIBUTE, attribute, C_EQUALS, C_SLASH, C_GT, C_WHITESPACE, C_EOF );
+
+		// Attribute values end with the second unescaped quote.
+		// States: before the first quote, after it, and the same after a back slash.
+		int value = S_ATTRIBUTE_VALUE;
+		onOthers( value, value );
+		on( value, value + 1, C_BACKSLASH );
+		on( value, value + 2, C_QUOTE );
+
+		onOthers( value + 1, value );
+		on( value + 1, value + 1, C_BACKSLASH );
+
+		onOthers( value + 2, value + 2 );
+		on( value + 2, value + 3, C_BACKSLASH );
+		on( value + 2, emit( S_AFTER_ATTRIBUTE_VALUE, XmlRegionType.ATTRIBUTE_VALUE ), C_QUOTE );
+
+		onOthers( value + 3, value + 2 );
+		on( value + 3, value + 3, C_BACKSLASH );
+
+		for( int i = value; i < value + 4; i ++ )
+			on( i, before( S_OTHER, XmlRegionType.ATTRIBUTE_VALUE ), C_EOF );
+
+		// Mark-up values end before '<'
+		onOthers( S_MARKUP_VALUE, S_MARKUP_VALUE );
+		on( S_MARKUP_VALUE, before( S_OTHER, XmlRegionType.MARKUP_VALUE ), C_LT, C_EOF );
+
+		// '/' is a mark-up when '>' follows, something else otherwise
+		onOthers( S_SLASH_IN_TEXT, S_MARKUP_VALUE | ABSORB );
+		on( S_SLASH_IN_TEXT, emit( S_CONTENT, XmlRegionType.MARKUP ), C_GT );
+		on( S_SLASH_IN_TEXT, before( S_OTHER, XmlRegionType.MARKUP_VALUE ) | ABSORB, C_LT, C_EOF );
+
+		onOthers( S_SLASH, S_UNEXPECTED );
+		on( S_SLASH, emit( S_CONTENT, XmlRegionType.MARKUP ), C_GT );
+		on( S_SLASH, before( S_OTHER, XmlRegionType.UNEXPECTED ), C_EOF );
+
+		// Anything unexpected goes until the end
+		onOthers( S_UNEXPECTED, S_UNEXPECTED );
+		on( S_UNEXPECTED, before( S_OTHER, XmlRegionType.UNEXPECTED ), C_EOF );
+	}
+
+
+	/**
+	 * Initializes the transitions of a region that ends with a sequence like "--&gt;".
+	 * <p>
+	 * States: no character of the sequence, one character, two characters.
+	 * </p>
+	 *
+	 * @param state the first state of the region
+	 * @param charClass the class of the character that appears twice in the sequence
+	 * @param next the state after the region
+	 * @param xmlRegionType the region type
+	 */
+	private static void sequence( int state, int charClass, int next, XmlRegionType xmlRegionType ) {
+
+		onOthers( state, state );
+		on( state, state + 1, charClass );
+
+		onOthers( state + 1, state );
+		on( state + 1, state + 2, charClass );
+
+		onOthers( state + 2, state );
+		on( state + 2, emit( next, xmlRegionType ), C_GT );
+
+		for( int i = state; i < state + 3; i ++ )
+			on( i, before( S_OTHER, xmlRegionType ), C_EOF );
+	}
+
+
+	/**
+	 * @param next the next state
+	 * @param xmlRegionType the type of the region that ends with the current character (included)
+	 * @return a transition
+	 */
+	private static int emit( int next, XmlRegionType xmlRegionType ) {
+		return next | EMIT | xmlRegionType.ordinal() << TYPE_SHIFT;
+	}
+
+
+	/**
+	 * @param next the next state, that will read the current character again
+	 * @param xmlRegionType the type of the region that ends before the current character
+	 * @return a transition
+	 */
+	private static int before( int next, XmlRegionType xmlRegionType ) {
+		return emit( next, xmlRegionType ) | HOLD;
+	}
+
+
+	/**
+	 * Sets the transition of a state for some character classes.
+	 * @param state the state
+	 * @param transition the transition
+	 * @param charClasses the character classes
+	 */
+	private static void on( int state, int transition, int... charClasses ) {
+		for( int charClass : charClasses )
+			TRANSITIONS[ state * CLASS_COUNT + charClass ] = transition;
+	}
+
+
+	/**
+	 * Sets the transition of a state for all the character classes, but the end of the document.
+	 * @param state the state
+	 * @param transition the transition
+	 */
+	private static void onOthers( int state, int transition ) {
+		for( int charClass = 0; charClass < C_EOF; charClass ++ )
+			TRANSITIONS[ state * CLASS_COUNT + charClass ] = transition;
+	}
+}
@@ -0,0 +1,228 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * A listener that accumulates the measures of analyses, and that can be exposed through JMX.
+ * <p>
+ * Latencies are counted in buckets whose bounds are powers of 2 (in microseconds),
+ * from 1 microsecond to about 16 seconds. The statistics are thread-safe: a single instance can be
+ * shared by several analyzers.
+ * </p>
+ * <pre><code>
+ * XmlRegionStatistics statistics = new XmlRegionStatistics();
+ * statistics.register( "myService" );
+ * XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer( LexerEngine.SCANNER, statistics );
+ * </code></pre>
+ *
+ * @author Vincent Zurczak
+ * @version 1.0 (tag version)
+ */
+public class XmlRegionStatistics implements XmlRegionMetricsListener, XmlRegionStatisticsMXBean {
+
+	/**
+	 * The domain and the type of the JMX names.
+	 */
+	public static final String OBJECT_NAME_PREFIX = "net.vzurczak.xml.region.analyzer:type=XmlRegionStatistics";
+
+	private static final XmlRegionType[] TYPES = XmlRegionType.values();
+	private static final int BUCKET_COUNT = 26;
+
+	private long analysisCount, totalLength, totalDurationNanos, analysisWithUnexpectedRegionsCount;
+	private final long[] regionCounts = new long[ TYPES.length ];
+	private final long[] largestRegionSizes = new long[ TYPES.length ];
+	private final long[] latencyHistogram = new long[ BUCKET_COUNT ];
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.vzurczak.xml.region.analyzer.XmlRegionMetricsListener
+	 * #onAnalysis(net.vzurczak.xml.region.analyzer.XmlRegionMetrics)
+	 */
+	@Override
+	public synchronized void onAnalysis( XmlRegionMetrics metrics ) {
+
+		this.analysisCount ++;
+		this.totalLength += metrics.getLength();
+		this.totalDurationNanos += metrics.getDurationNanos();
+		if( metrics.getUnexpectedRegionCount() > 0 )
+			this.analysisWithUnexpectedRegionsCount ++;
+
+		for( XmlRegionType type : TYPES ) {
+			this.regionCounts[ type.ordinal()] += metrics.getRegionCount( type );
+			this.largestRegionSizes[ type.ordinal()] = Math.max(
+					this.largestRegionSizes[ type.ordinal()],
+					metrics.getLargestRegionSize( type ));
+		}
+
+		// Bucket i counts the latencies in [2^(i-1), 2^i[ microseconds
+		long micros = metrics.getDurationNanos() / 1000;
+		int bucket = 64 - Long.numberOfLeadingZeros( micros );
+		this.latencyHistogram[ Math.min( bucket, BUCKET_COUNT - 1 )] ++;
+	}
+
+
+	/**
+	 * Registers these statistics in the platform MBean server.
+	 * @param name the name of the statistics (e.g. the name of the component that uses the analyzer)
+	 * @return the JMX name of the statistics
+	 * @throws JMException if the registration failed (e.g. the name is already used)
+	 */
+	public ObjectName register( String name ) throws JMException {
+
+		ObjectName result = new ObjectName( OBJECT_NAME_PREFIX + ",name=" + ObjectName.quote( name ));
+		ManagementFactory.getPlatformMBeanServer().registerMBean( this, result );
+		return result;
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.vzurczak.xml.region.analyzer.XmlRegionStatisticsMXBean
+	 * #getAnalysisCount()
+	 */
+	@Override
+	public synchronized long getAnalysisCount() {
+		return this.analysisCount;
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.vzurczak.xml.region.analyzer.XmlRegionStatisticsMXBean
+	 * #getTotalLength()
+	 */
+	@Override
+	public synchronized long getTotalLength() {
+		return this.totalLength;
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.vzurczak.xml.region.analyzer.XmlRegionStatisticsMXBean
+	 * #getTotalDurationNanos()
+	 */
+	@Override
+	public synchronized long getTotalDurationNanos() {
+		return this.totalDurationNanos;
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.vzurczak.xml.region.analyzer.XmlRegionStatisticsMXBean
+	 * #getRegionCounts()
+	 */
+	@Override
+	public synchronized Map<String,Long> getRegionCounts() {
+		return toMap( this.regionCounts );
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.vzurczak.xml.region.analyzer.XmlRegionStatisticsMXBean
+	 * #getAnalysisWithUnexpectedRegionsCount()
+	 */
+	@Override
+	public synchronized long getAnalysisWithUnexpectedRegionsCount() {
+		return this.analysisWithUnexpectedRegionsCount;
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.vzurczak.xml.region.analyzer.XmlRegionStatisticsMXBean
+	 * #getLargestRegionSizes()
+	 */
+	@Override
+	public synchronized Map<String,Long> getLargestRegionSizes() {
+		return toMap( this.largestRegionSizes );
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.vzurczak.xml.region.analyzer.XmlRegionStatisticsMXBean
+	 * #getLatencyBucketBoundsMicros()
+	 */
+	@Override
+	public long[] getLatencyBucketBoundsMicros() {
+
+		long[] result = new long[ BUCKET_COUNT - 1 ];
+		for( int i=0; i<result.length; i++ )
+			result[ i ] = 1L << i;
+
+		return result;
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.vzurczak.xml.region.analyzer.XmlRegionStatisticsMXBean
+	 * #getLatencyHistogram()
+	 */
+	@Override
+	public synchronized long[] getLatencyHistogram() {
+		return this.latencyHistogram.clone();
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.vzurczak.xml.region.analyzer.XmlRegionStatisticsMXBean
+	 * #reset()
+	 */
+	@Override
+	public synchronized void reset() {
+		this.analysisCount = 0;
+		this.totalLength = 0;
+		this.totalDurationNanos = 0;
+		this.analysisWithUnexpectedRegionsCount = 0;
+		Arrays.fill( this.regionCounts, 0 );
+		Arrays.fill( this.largestRegionSizes, 0 );
+		Arrays.fill( this.latencyHistogram, 0 );
+	}
+
+
+	/**
+	 * @param values values indexed by the ordinals of the region types
+	 * @return a map associating the names of the region types and the values
+	 */
+	private static Map<String,Long> toMap( long[] values ) {
+
+		Map<String,Long> result = new LinkedHashMap<> ();
+		for( XmlRegionType type : TYPES )
+			result.put( type.name(), values[ type.ordinal()]);
+
+		return result;
+	}
+}
@@ -0,0 +1,79 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.util.Map;
+
+/**
+ * The management interface of {@link XmlRegionStatistics}.
+ * <p>
+ * Counters are cumulative, since the creation of the statistics or their last reset.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ * @version 1.0 (tag version)
+ */
+public interface XmlRegionStatisticsMXBean {
+
+	/**
+	 * @return the number of analyses
+	 */
+	long getAnalysisCount();
+
+	/**
+	 * @return the total size of the analyzed documents
+	 */
+	long getTotalLength();
+
+	/**
+	 * @return the total duration of the analyses, in nanoseconds
+	 */
+	long getTotalDurationNanos();
+
+	/**
+	 * @return the number of regions, by region type
+	 */
+	Map<String,Long> getRegionCounts();
+
+	/**
+	 * @return the number of analyses that found at least one unexpected region
+	 */
+	long getAnalysisWithUnexpectedRegionsCount();
+
+	/**
+	 * @return the size of the largest region, by region type
+	 */
+	Map<String,Long> getLargestRegionSizes();
+
+	/**
+	 * @return the upper bounds of the latency buckets, in microseconds (the last bucket has no bound)
+	 */
+	long[] getLatencyBucketBoundsMicros();
+
+	/**
+	 * @return the number of analyses in every latency bucket
+	 */
+	long[] getLatencyHistogram();
+
+	/**
+	 * Resets all the counters.
+	 */
+	void reset();
+}
@@ -0,0 +1,102 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Analyzes a stream of characters, one buffer at a time.
+ * <p>
+ * Every step reads the stream once and notifies the regions that are complete.
+ * The lexer state is kept from one buffer to the next one. Callers decide when
+ * the next step happens, which allows to analyze a stream at the pace of its consumers.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+final class XmlRegionStreamLexer {
+
+	/**
+	 * The minimal size of the buffer, in characters.
+	 */
+	static final int MIN_BUFFER_SIZE = 4 * XmlRegionLexer.LOOKAHEAD;
+
+	private final Reader reader;
+	private final XmlRegionLexer lexer;
+	private char[] buffer;
+	private int limit;
+	private boolean done;
+
+
+	/**
+	 * Constructor.
+	 * @param reader a reader for the XML text (not closed by this class)
+	 * @param handler the handler to notify when a region is found
+	 * @param bufferSize the size of the buffer, in characters
+	 */
+	XmlRegionStreamLexer( Reader reader, XmlRegionHandler handler, int bufferSize ) {
+		this.reader = reader;
+		this.buffer = new char[ Math.max( bufferSize, MIN_BUFFER_SIZE )];
+		this.lexer = new XmlRegionLexer( handler );
+		this.lexer.setWindow( CharBuffer.wrap( this.buffer ));
+	}
+
+
+	/**
+	 * Reads the stream once and analyzes what was read.
+	 * @return true if the stream may contain other regions, false once the end of the stream was analyzed
+	 * @throws IOException if the reader could not be read
+	 */
+	boolean advance() throws IOException {
+
+		if( this.done )
+			return false;
+
+		int read = this.reader.read( this.buffer, this.limit, this.buffer.length - this.limit );
+		if( read > 0 )
+			this.limit += read;
+
+		this.lexer.update( this.limit, read < 0 );
+		this.lexer.analyze();
+		if( read < 0 ) {
+			this.done = true;
+
+		} else {
+			// Move the characters the lexer still needs at the beginning of the buffer
+			int retained = this.lexer.getRetainedIndex();
+			if( retained > 0 ) {
+				System.arraycopy( this.buffer, retained, this.buffer, 0, this.limit - retained );
+				this.limit -= retained;
+				this.lexer.discard( retained );
+			}
+
+			// Only instructions can retain a whole buffer
+			if( this.limit == this.buffer.length ) {
+				this.buffer = Arrays.copyOf( this.buffer, this.buffer.length * 2 );
+				this.lexer.setWindow( CharBuffer.wrap( this.buffer ));
+			}
+		}
+
+		return ! this.done;
+	}
+}
@@ -0,0 +1,197 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * Updates the regions of a document after a modification.
+ * <p>
+ * The analysis restarts from the last region boundary before the modification, where
+ * the lexer state is known. It stops as soon as a region found after the modification
+ * is also an old region (once shifted): from there, the lexer would find the same regions
+ * than before. The old regions that follow are kept and shifted.
+ * </p>
+ * <p>
+ * Two things are taken into account when looking for the restart point.
+ * </p>
+ * <ul>
+ * 		<li>White spaces are merged into the next region when it is a mark-up value.
+ * 		The analysis thus restarts before the white spaces that precede the modification.</li>
+ * 		<li>An instruction that is never closed is read as a mark-up. If the modification
+ * 		introduces a "?&gt;", the first one of these mark-ups may now be an instruction.</li>
+ * </ul>
+ *
+ * @author Vincent Zurczak
+ */
+final class XmlRegionUpdater implements XmlRegionHandler {
+
+	private final XmlRegionBuffer positions;
+	private final XmlRegionBuffer newPositions = new XmlRegionBuffer();
+	private final int modificationEnd, shift;
+	private final XmlRegionLexer lexer;
+
+	private int oldIndex;
+	private int resyncIndex = -1;
+
+
+	/**
+	 * Constructor.
+	 * @param positions the regions before the modification
+	 * @param modificationEnd the end of the inserted text, in the modified document
+	 * @param shift the difference between the new and the old lengths of the document
+	 */
+	private XmlRegionUpdater( XmlRegionBuffer positions, int modificationEnd, int shift ) {
+		this.positions = positions;
+		this.modificationEnd = modificationEnd;
+		this.shift = shift;
+		this.lexer = new XmlRegionLexer( this );
+	}
+
+
+	/**
+	 * Updates the regions of a document after a modification.
+	 * @param xml the modified document
+	 * @param positions the regions of the document before the modification (updated by this method)
+	 * @param offset the position of the modification
+	 * @param removedLength the number of removed characters
+	 * @param insertedLength the number of inserted characters
+	 * @return the range whose regions changed
+	 */
+	static XmlRegionDamage update( CharSequence xml, XmlRegionBuffer positions, int offset, int removedLength, int insertedLength ) {
+
+		// Find the restart point
+		int restartIndex = findFirstRegionAfter( positions, offset );
+		if( restartIndex > 0 && positions.getXmlRegionType( restartIndex - 1 ) == XmlRegionType.WHITESPACE )
+			restartIndex --;
+
+		if( introducesInstructionEnd( xml, offset, insertedLength )) {
+			for( int i=0; i<restartIndex; i++ ) {
+				int start = positions.getStart( i );
+				if( positions.getXmlRegionType( i ) == XmlRegionType.MARKUP
+						&& xml.charAt( start ) == '<'
+						&& start + 1 < xml.length()
+						&& xml.charAt( start + 1 ) == '?' ) {
+					restartIndex = i;
+					break;
+				}
+			}
+		}
+
+		// Find the lexer state at this point
+		int restartOffset = restartIndex == 0 ? 0 : positions.getEnd( restartIndex - 1 );
+		int contextIndex = restartIndex - 1;
+		while( contextIndex >= 0 && positions.getXmlRegionType( contextIndex ) == XmlRegionType.WHITESPACE )
+			contextIndex --;
+
+		XmlLexicalContext context = XmlLexicalContext.START;
+		if( contextIndex >= 0 )
+			context = XmlLexicalContext.after( positions.getXmlRegionType( contextIndex ), xml.charAt( positions.getEnd( contextIndex ) - 1 ));
+
+		// Analyze the document until we find the old regions again
+		XmlRegionUpdater updater = new XmlRegionUpdater( positions, offset + insertedLength, insertedLength - removedLength );
+		updater.oldIndex = restartIndex;
+		updater.lexer.setWindow( xml );
+		updater.lexer.update( xml.length(), true );
+		updater.lexer.restartAt( restartOffset, context );
+		updater.lexer.analyze();
+
+		// Update the regions
+		int damageEnd;
+		if( updater.resyncIndex >= 0 ) {
+			damageEnd = positions.getStart( updater.resyncIndex ) + updater.shift;
+			positions.splice( restartIndex, updater.resyncIndex, updater.newPositions, updater.shift );
+		} else {
+			damageEnd = xml.length();
+			positions.splice( restartIndex, positions.size(), updater.newPositions, 0 );
+		}
+
+		return new XmlRegionDamage( restartOffset, damageEnd );
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.vzurczak.xml.region.analyzer.XmlRegionHandler
+	 * #onRegion(net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType, long, long)
+	 */
+	@Override
+	public void onRegion( XmlRegionType xmlRegionType, long start, long end ) {
+
+		// White spaces are notified before the next region is complete: they cannot be used to resynchronize
+		if( xmlRegionType != XmlRegionType.WHITESPACE && start >= this.modificationEnd ) {
+			int oldStart = (int) start - this.shift;
+			while( this.oldIndex < this.positions.size() && this.positions.getStart( this.oldIndex ) < oldStart )
+				this.oldIndex ++;
+
+			if( this.oldIndex < this.positions.size()
+					&& this.positions.getStart( this.oldIndex ) == oldStart
+					&& this.positions.getEnd( this.oldIndex ) == (int) end - this.shift
+					&& this.positions.getXmlRegionType( this.oldIndex ) == xmlRegionType ) {
+
+				this.resyncIndex = this.oldIndex;
+				this.lexer.stop();
+				return;
+			}
+		}
+
+		this.newPositions.add( xmlRegionType, (int) start, (int) end );
+	}
+
+
+	/**
+	 * Finds the first region that does not end before a given position.
+	 * @param positions the regions
+	 * @param offset a position
+	 * @return the index of the first region whose end is greater or equal to <code>offset</code>
+	 */
+	private static int findFirstRegionAfter( XmlRegionBuffer positions, int offset ) {
+
+		// The lexer may have looked at the character that follows a region to find its end
+		int low = 0, high = positions.size();
+		while( low < high ) {
+			int middle = (low + high) >>> 1;
+			if( positions.getEnd( middle ) < offset )
+				low = middle + 1;
+			else
+				high = middle;
+		}
+
+		return low;
+	}
+
+
+	/**
+	 * Determines whether a modification introduced the end of an instruction.
+	 * @param xml the modified document
+	 * @param offset the position of the modification
+	 * @param insertedLength the number of inserted characters
+	 * @return true if "?&gt;" appears in the inserted text or at its boundaries
+	 */
+	private static boolean introducesInstructionEnd( CharSequence xml, int offset, int insertedLength ) {
+
+		int end = Math.min( offset + insertedLength + 1, xml.length());
+		for( int i=Math.max( offset, 1 ); i<end; i++ ) {
+			if( xml.charAt( i ) == '>' && xml.charAt( i - 1 ) == '?' )
+				return true;
+		}
+
+		return false;
+	}
+}
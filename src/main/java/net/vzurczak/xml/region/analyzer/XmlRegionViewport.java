@@ -0,0 +1,187 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * Analyzes the part of a document that covers a given range.
+ * <p>
+ * The analysis restarts from the last '&lt;' before the range, as if it followed a complete mark-up.
+ * Outside comments, CDATA sections, instructions and attribute values, a '&lt;' starts a new region.
+ * To avoid restarting in the middle of a comment or of a CDATA section, the characters that precede
+ * this '&lt;' are searched (backwards) for one that is not closed. This is a guess: the lexical context
+ * of a complete analysis also depends on what comes before (e.g. some text after a CDATA section
+ * is an unexpected region that goes until the end of the document), and then the regions differ.
+ * When checkpoints were recorded, the analysis restarts from the last one before the range instead:
+ * the regions are then exact.
+ * </p>
+ * <p>
+ * The analysis stops as soon as the range is covered.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+final class XmlRegionViewport implements XmlRegionHandler {
+
+	/**
+	 * The number of characters searched for a comment or a CDATA section that is not closed.
+	 */
+	static final int LOOKBEHIND = 16 * 1024;
+
+	private final XmlRegionHandler handler;
+	private final int from, to;
+	private final XmlRegionLexer lexer;
+
+
+	/**
+	 * Constructor.
+	 * @param handler the handler to notify
+	 * @param from the start of the range (included)
+	 * @param to the end of the range (excluded)
+	 */
+	private XmlRegionViewport( XmlRegionHandler handler, int from, int to ) {
+		this.handler = handler;
+		this.from = from;
+		this.to = to;
+		this.lexer = new XmlRegionLexer( this );
+	}
+
+
+	/**
+	 * Notifies the regions that intersect a range.
+	 * @param xml the XML text
+	 * @param from the start of the range (included)
+	 * @param to the end of the range (excluded)
+	 * @param handler the handler to notify
+	 */
+	static void analyze( CharSequence xml, int from, int to, XmlRegionHandler handler ) {
+
+		int restartOffset = findRestartPoint( xml, from );
+		XmlLexicalContext context = restartOffset == 0 ? XmlLexicalContext.START : XmlLexicalContext.CONTENT;
+		analyze( xml, from, to, handler, new XmlRegionCheckpoint( restartOffset, context ));
+	}
+
+
+	/**
+	 * Notifies the regions that intersect a range, restarting from a checkpoint.
+	 * @param xml the XML text
+	 * @param from the start of the range (included)
+	 * @param to the end of the range (excluded)
+	 * @param handler the handler to notify
+	 * @param checkpoint a checkpoint located at or before <code>from</code>
+	 */
+	static void analyze( CharSequence xml, int from, int to, XmlRegionHandler handler, XmlRegionCheckpoint checkpoint ) {
+
+		if( from == to )
+			return;
+
+		XmlRegionViewport viewport = new XmlRegionViewport( handler, from, to );
+		viewport.lexer.setWindow( xml );
+		viewport.lexer.update( xml.length(), true );
+		viewport.lexer.restartAt((int) checkpoint.getOffset(), checkpoint.getContext());
+		viewport.lexer.analyze();
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.vzurczak.xml.region.analyzer.XmlRegionHandler
+	 * #onRegion(net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType, long, long)
+	 */
+	@Override
+	public void onRegion( XmlRegionType xmlRegionType, long start, long end ) {
+
+		if( start >= this.to ) {
+			this.lexer.stop();
+
+		} else if( end > this.from ) {
+			this.handler.onRegion( xmlRegionType, start, end );
+
+			// White spaces are notified before the next region is complete
+			if( end >= this.to && xmlRegionType != XmlRegionType.WHITESPACE )
+				this.lexer.stop();
+		}
+	}
+
+
+	/**
+	 * Finds the position from which a document can be analyzed to get the regions at a given position.
+	 * @param xml the XML text
+	 * @param from a position in the text
+	 * @return the position of a '&lt;' that starts a region, or 0
+	 */
+	static int findRestartPoint( CharSequence xml, int from ) {
+
+		int result = lastIndexOf( xml, "<", from, 0 );
+		if( result > 0 ) {
+			int min = Math.max( 0, result - LOOKBEHIND );
+			result = findUnclosed( xml, "<!--", "-->", result, min );
+			result = findUnclosed( xml, "<![CDATA[", "]]>", result, min );
+		}
+
+		return Math.max( 0, result );
+	}
+
+
+	/**
+	 * Finds the beginning of a section that is not closed before a given position.
+	 * @param xml the XML text
+	 * @param opening the string that opens the section
+	 * @param closing the string that closes the section
+	 * @param position a position in the text
+	 * @param min the position where the search stops
+	 * @return the position of the unclosed section, or <code>position</code> if there is none
+	 */
+	private static int findUnclosed( CharSequence xml, String opening, String closing, int position, int min ) {
+
+		int result = position;
+		int openingIndex = lastIndexOf( xml, opening, position - 1, min );
+		if( openingIndex >= 0
+				&& lastIndexOf( xml, closing, position - closing.length(), openingIndex + opening.length()) < 0 )
+			result = openingIndex;
+
+		return result;
+	}
+
+
+	/**
+	 * Searches a string backwards.
+	 * @param xml the XML text
+	 * @param s the string to find
+	 * @param fromIndex the index to start the search from
+	 * @param min the lowest index to search
+	 * @return the index of the last occurrence of <code>s</code> between <code>min</code>
+	 * and <code>fromIndex</code>, or -1 if there is none
+	 */
+	private static int lastIndexOf( CharSequence xml, String s, int fromIndex, int min ) {
+
+		int result = Math.min( fromIndex, xml.length() - s.length());
+		for( ; result >= min; result -- ) {
+			int i = 0;
+			while( i < s.length() && xml.charAt( result + i ) == s.charAt( i ))
+				i ++;
+
+			if( i == s.length())
+				break;
+		}
+
+		return result >= min ? result : -1;
+	}
+}
@@ -0,0 +1,88 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import jdk.jfr.EventType;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * Emits JDK Flight Recorder events about analyses.
+ * <p>
+ * It is loaded by {@link XmlRegionEvents} when the <code>jdk.jfr</code> module is available.
+ * When a recording does not enable the events, analyses are not measured
+ * and no event is created (the event types are checked instead).
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+final class JfrXmlRegionEvents extends XmlRegionEvents {
+
+	/**
+	 * The system property that sets the minimal size of the oversized regions.
+	 */
+	static final String OVERSIZED_REGION_SIZE_PROPERTY = "net.vzurczak.xml.region.analyzer.oversizedRegionSize";
+
+	private static final EventType ANALYSIS_TYPE = EventType.getEventType( XmlRegionAnalysisEvent.class );
+	private static final EventType OVERSIZED_REGION_TYPE = EventType.getEventType( XmlRegionOversizedRegionEvent.class );
+
+	private final long oversizedRegionSize = Long.getLong( OVERSIZED_REGION_SIZE_PROPERTY, 64 * 1024 );
+
+
+	@Override
+	XmlRegionMetricsListener begin() {
+
+		if( ! ANALYSIS_TYPE.isEnabled())
+			return null;
+
+		XmlRegionAnalysisEvent event = new XmlRegionAnalysisEvent();
+		event.begin();
+		return metrics -> {
+			event.end();
+			if( event.shouldCommit()) {
+				event.documentLength = metrics.getLength();
+				event.regionCount = metrics.getRegionCount();
+				event.unexpectedRegionCount = metrics.getUnexpectedRegionCount();
+				event.largestRegionSize = metrics.getLargestRegionSize();
+				event.endsWithUnexpectedRegion = metrics.endsWithUnexpectedRegion();
+				event.commit();
+			}
+		};
+	}
+
+
+	@Override
+	long getOversizedRegionSize() {
+		return OVERSIZED_REGION_TYPE.isEnabled() ? this.oversizedRegionSize : Long.MAX_VALUE;
+	}
+
+
+	@Override
+	void onOversizedRegion( XmlRegionType xmlRegionType, long start, long end ) {
+
+		XmlRegionOversizedRegionEvent event = new XmlRegionOversizedRegionEvent();
+		if( event.shouldCommit()) {
+			event.regionType = xmlRegionType.name();
+			event.start = start;
+			event.size = end - start;
+			event.commit();
+		}
+	}
+}
@@ -0,0 +1,53 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.util.Spliterator;
+
+/**
+ * The regions of a document, with a spliterator that describes them.
+ * <p>
+ * It is loaded by {@link XmlRegionIterable} on Java 17 and later.
+ * The default spliterator of {@link Iterable} has no characteristics.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+final class SpliteratorXmlRegionIterable extends XmlRegionIterable {
+
+	/**
+	 * Constructor.
+	 * @param xml the XML text (may be an invalid XML document)
+	 */
+	SpliteratorXmlRegionIterable( CharSequence xml ) {
+		super( xml );
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Iterable
+	 * #spliterator()
+	 */
+	@Override
+	public Spliterator<XmlRegion> spliterator() {
+		return new XmlRegionSpliterator( this.xml );
+	}
+}
@@ -0,0 +1,105 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A scanner that reads several characters at once with the Vector API.
+ * <p>
+ * It is loaded by {@link XmlRegionScanner} when the <code>jdk.incubator.vector</code> module
+ * is available. The remaining elements (less than a vector) are read by the scalar methods.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+final class VectorXmlRegionScanner extends XmlRegionScanner {
+
+	private static final VectorSpecies<Short> CHARS = ShortVector.SPECIES_PREFERRED;
+	private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+
+
+	@Override
+	int indexOf( char[] chars, int from, int to, char c ) {
+
+		int i = from;
+		for( int bound = from + CHARS.loopBound( to - from ); i < bound; i += CHARS.length()) {
+			VectorMask<Short> found = ShortVector.fromCharArray( CHARS, chars, i ).eq((short) c );
+			if( found.anyTrue())
+				break;
+		}
+
+		return super.indexOf( chars, i, to, c );
+	}
+
+
+	@Override
+	int indexOf( byte[] bytes, int from, int to, byte b ) {
+
+		int i = from;
+		for( int bound = from + BYTES.loopBound( to - from ); i < bound; i += BYTES.length()) {
+			VectorMask<Byte> found = ByteVector.fromArray( BYTES, bytes, i ).eq( b );
+			if( found.anyTrue())
+				break;
+		}
+
+		return super.indexOf( bytes, i, to, b );
+	}
+
+
+	@Override
+	int skipWhitespaces( char[] chars, int from, int to ) {
+
+		int i = from;
+		for( int bound = from + CHARS.loopBound( to - from ); i < bound; i += CHARS.length()) {
+			ShortVector v = ShortVector.fromCharArray( CHARS, chars, i );
+			VectorMask<Short> others = v.compare( VectorOperators.LT, (short) 9 )
+					.or( v.compare( VectorOperators.GT, (short) 32 ))
+					.or( v.compare( VectorOperators.GT, (short) 13 ).and( v.compare( VectorOperators.LT, (short) 28 )));
+
+			if( others.anyTrue())
+				break;
+		}
+
+		return super.skipWhitespaces( chars, i, to );
+	}
+
+
+	@Override
+	int skipWhitespaces( byte[] bytes, int from, int to ) {
+
+		// Bytes are signed: non-ASCII bytes are negative, thus lower than 9
+		int i = from;
+		for( int bound = from + BYTES.loopBound( to - from ); i < bound; i += BYTES.length()) {
+			ByteVector v = ByteVector.fromArray( BYTES, bytes, i );
+			VectorMask<Byte> others = v.compare( VectorOperators.LT, (byte) 9 )
+					.or( v.compare( VectorOperators.GT, (byte) 32 ))
+					.or( v.compare( VectorOperators.GT, (byte) 13 ).and( v.compare( VectorOperators.LT, (byte) 28 )));
+
+			if( others.anyTrue())
+				break;
+		}
+
+		return super.skipWhitespaces( bytes, i, to );
+	}
+}
@@ -0,0 +1,60 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event emitted for every complete analysis.
+ * <p>
+ * The duration of the event is the duration of the analysis (including the time spent in the handler).
+ * Sizes are counted in characters, or in bytes for documents encoded in UTF-8.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+@Name( "net.vzurczak.xml.region.Analysis" )
+@Label( "XML Region Analysis" )
+@Category( "XML Region Analyzer" )
+@Description( "A XML document was analyzed" )
+final class XmlRegionAnalysisEvent extends Event {
+
+	@Label( "Document Length" )
+	@Description( "In characters, or in bytes for documents encoded in UTF-8" )
+	long documentLength;
+
+	@Label( "Region Count" )
+	long regionCount;
+
+	@Label( "Unexpected Region Count" )
+	long unexpectedRegionCount;
+
+	@Label( "Largest Region Size" )
+	@Description( "In characters, or in bytes for documents encoded in UTF-8" )
+	long largestRegionSize;
+
+	@Label( "Ends With An Unexpected Region" )
+	@Description( "True if the document ends with an unexpected region (e.g. a truncated document)" )
+	boolean endsWithUnexpectedRegion;
+}
@@ -0,0 +1,58 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event emitted for every region bigger than a threshold.
+ * <p>
+ * This event is disabled by default. The threshold is set by the system property
+ * <code>net.vzurczak.xml.region.analyzer.oversizedRegionSize</code>
+ * (64 KB by default).
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+@Name( "net.vzurczak.xml.region.OversizedRegion" )
+@Label( "XML Oversized Region" )
+@Category( "XML Region Analyzer" )
+@Description( "A XML region bigger than the threshold was found" )
+@Enabled( false )
+@StackTrace( false )
+final class XmlRegionOversizedRegionEvent extends Event {
+
+	@Label( "Region Type" )
+	String regionType;
+
+	@Label( "Start" )
+	@Description( "In characters, or in bytes for documents encoded in UTF-8" )
+	long start;
+
+	@Label( "Size" )
+	@Description( "In characters, or in bytes for documents encoded in UTF-8" )
+	long size;
+}
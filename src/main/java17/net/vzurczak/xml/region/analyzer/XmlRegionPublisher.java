@@ -0,0 +1,255 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A publisher that emits the regions of a document on demand.
+ * <p>
+ * The document is read and analyzed one buffer at a time, only when the subscriber
+ * requested regions that have not been found yet. The lexer thus advances at the pace
+ * of the subscriber, and the memory used does not depend on the size of the document.
+ * Positions are counted from the beginning of the document: documents bigger than
+ * {@link Integer#MAX_VALUE} characters end with an error.
+ * </p>
+ * <p>
+ * A document can only be read once: this publisher accepts a single subscriber.
+ * Regions are emitted by the executor given to the constructor. By default, they are
+ * emitted by the thread that subscribes or requests regions.
+ * </p>
+ * <p>
+ * This class requires Java 17 or later. It is not part of the multi-release JAR but of the
+ * <code>jdk17</code> JAR, which must be on the class path along with the main JAR.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ * @version 1.0 (tag version)
+ */
+public final class XmlRegionPublisher implements Flow.Publisher<XmlRegion> {
+
+	private final Reader reader;
+	private final int bufferSize;
+	private final Executor executor;
+	private final AtomicBoolean subscribed = new AtomicBoolean();
+
+
+	/**
+	 * Constructor.
+	 * @param xml the XML text (may be an invalid XML document)
+	 */
+	public XmlRegionPublisher( CharSequence xml ) {
+		this( new StringReader( xml.toString()));
+	}
+
+
+	/**
+	 * Constructor.
+	 * @param reader a reader for the XML text (may be an invalid XML document), not closed by this class
+	 */
+	public XmlRegionPublisher( Reader reader ) {
+		this( reader, XmlRegionAnalyzer.DEFAULT_BUFFER_SIZE, Runnable::run );
+	}
+
+
+	/**
+	 * Constructor.
+	 * @param reader a reader for the XML text (may be an invalid XML document), not closed by this class
+	 * @param bufferSize the size of the buffer, in characters
+	 * @param executor the executor that analyzes the document and emits the regions
+	 */
+	public XmlRegionPublisher( Reader reader, int bufferSize, Executor executor ) {
+		this.reader = Objects.requireNonNull( reader, "The reader cannot be null." );
+		this.bufferSize = bufferSize;
+		this.executor = Objects.requireNonNull( executor, "The executor cannot be null." );
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.Flow.Publisher
+	 * #subscribe(java.util.concurrent.Flow.Subscriber)
+	 */
+	@Override
+	public void subscribe( Flow.Subscriber<? super XmlRegion> subscriber ) {
+
+		Objects.requireNonNull( subscriber, "The subscriber cannot be null." );
+		if( this.subscribed.compareAndSet( false, true )) {
+			subscriber.onSubscribe( new RegionSubscription( subscriber ));
+
+		} else {
+			subscriber.onSubscribe( new Flow.Subscription() {
+				@Override
+				public void request( long n ) {
+					// nothing
+				}
+
+				@Override
+				public void cancel() {
+					// nothing
+				}
+			});
+
+			subscriber.onError( new IllegalStateException( "This publisher only accepts one subscriber." ));
+		}
+	}
+
+
+	/**
+	 * The subscription of the subscriber.
+	 * <p>
+	 * Requests and cancellations can come from any thread. A single thread at a time
+	 * analyzes the document and emits regions (the one that increments <code>work</code> first).
+	 * Requests made while regions are emitted (e.g. by the subscriber itself) are
+	 * processed by this thread, which prevents recursions.
+	 * </p>
+	 *
+	 * @author Vincent Zurczak
+	 */
+	private final class RegionSubscription implements Flow.Subscription, Runnable {
+
+		private final Flow.Subscriber<? super XmlRegion> subscriber;
+		private final XmlRegionBuffer pending = new XmlRegionBuffer();
+		private final XmlRegionStreamLexer lexer;
+		private final AtomicLong demand = new AtomicLong();
+		private final AtomicInteger work = new AtomicInteger();
+
+		private volatile boolean cancelled;
+		private volatile Throwable invalidRequest;
+		private int next;
+		private boolean more = true;
+
+
+		/**
+		 * Constructor.
+		 * @param subscriber the subscriber
+		 */
+		RegionSubscription( Flow.Subscriber<? super XmlRegion> subscriber ) {
+			this.subscriber = subscriber;
+			this.lexer = new XmlRegionStreamLexer( XmlRegionPublisher.this.reader, this.pending, XmlRegionPublisher.this.bufferSize );
+		}
+
+
+		@Override
+		public void request( long n ) {
+
+			if( n <= 0 )
+				this.invalidRequest = new IllegalArgumentException( "The number of requested regions must be strictly positive: " + n );
+			else
+				this.demand.getAndUpdate( d -> d + n < 0 ? Long.MAX_VALUE : d + n );
+
+			schedule();
+		}
+
+
+		@Override
+		public void cancel() {
+			this.cancelled = true;
+		}
+
+
+		@Override
+		public void run() {
+
+			int missed = 1;
+			do {
+				try {
+					emit();
+
+				} catch( RuntimeException | Error e ) {
+					this.cancelled = true;
+					throw e;
+				}
+
+				missed = this.work.addAndGet( - missed );
+			} while( missed != 0 );
+		}
+
+
+		/**
+		 * Emits the regions that were requested, analyzing the document when necessary.
+		 */
+		private void emit() {
+
+			while( ! this.cancelled ) {
+				if( this.invalidRequest != null ) {
+					this.cancelled = true;
+					this.subscriber.onError( this.invalidRequest );
+
+				} else if( this.demand.get() == 0 && this.more ) {
+					break;
+
+				} else if( this.next < this.pending.size()) {
+					if( this.demand.get() == 0 )
+						break;
+
+					int i = this.next ++;
+					this.demand.decrementAndGet();
+					this.subscriber.onNext( new XmlRegion( this.pending.getXmlRegionType( i ), this.pending.getStart( i ), this.pending.getEnd( i )));
+
+				} else if( this.more ) {
+					this.pending.clear();
+					this.next = 0;
+					try {
+						this.more = this.lexer.advance();
+
+					} catch( IOException | RuntimeException e ) {
+						this.cancelled = true;
+						this.subscriber.onError( e );
+					}
+
+				} else {
+					this.cancelled = true;
+					this.subscriber.onComplete();
+				}
+			}
+		}
+
+
+		/**
+		 * Makes sure a thread emits the requested regions.
+		 * <p>
+		 * If the executor rejects the task, no thread will ever emit regions:
+		 * the subscription is cancelled and the subscriber is notified of the error.
+		 * </p>
+		 */
+		private void schedule() {
+
+			if( this.work.getAndIncrement() == 0 ) {
+				try {
+					XmlRegionPublisher.this.executor.execute( this );
+
+				} catch( RejectedExecutionException e ) {
+					this.cancelled = true;
+					this.subscriber.onError( e );
+				}
+			}
+		}
+	}
+}
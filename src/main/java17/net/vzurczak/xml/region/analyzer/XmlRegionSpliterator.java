@@ -0,0 +1,110 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A spliterator that analyzes a document as its regions are requested.
+ * <p>
+ * It is returned by the iterables of {@link XmlRegionAnalyzer#iterateXml(CharSequence)}.
+ * Like their iterators, the lexer only looks for the next region when it is needed: short-circuiting stream operations (<code>findFirst</code>,
+ * <code>limit</code>, <code>anyMatch</code>...) do not analyze the rest of the document.
+ * Regions are found in the order of the document: this spliterator cannot be split.
+ * Use {@link XmlRegionAnalyzer#analyzeXmlInParallel(String, XmlRegionBuffer)} to analyze
+ * big documents with several threads.
+ * </p>
+ * <p>
+ * This class requires Java 17 or later.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ * @version 1.0 (tag version)
+ */
+final class XmlRegionSpliterator implements Spliterator<XmlRegion> {
+
+	private final XmlRegionIterator iterator;
+	private long estimatedSize;
+
+
+	/**
+	 * Constructor.
+	 * @param xml the XML text (may be an invalid XML document), which must not change during the traversal
+	 */
+	XmlRegionSpliterator( CharSequence xml ) {
+		this.iterator = new XmlRegionIterator( Objects.requireNonNull( xml, "The XML text cannot be null." ));
+		this.estimatedSize = xml.length() / 8;
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Spliterator
+	 * #tryAdvance(java.util.function.Consumer)
+	 */
+	@Override
+	public boolean tryAdvance( Consumer<? super XmlRegion> action ) {
+
+		Objects.requireNonNull( action );
+		boolean result = this.iterator.hasNext();
+		if( result ) {
+			action.accept( this.iterator.next());
+			if( this.estimatedSize > 0 )
+				this.estimatedSize --;
+		}
+
+		return result;
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Spliterator
+	 * #trySplit()
+	 */
+	@Override
+	public Spliterator<XmlRegion> trySplit() {
+		return null;
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Spliterator
+	 * #estimateSize()
+	 */
+	@Override
+	public long estimateSize() {
+		return this.estimatedSize;
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Spliterator
+	 * #characteristics()
+	 */
+	@Override
+	public int characteristics() {
+		return ORDERED | NONNULL | IMMUTABLE;
+	}
+}
@@ -0,0 +1,76 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * Unit tests for {@link XmlLexicalContext}.
+ * @author Vincent Zurczak
+ */
+public class XmlLexicalContextTest {
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testContextAfterRegions() throws Exception {
+
+		Assert.assertEquals( XmlLexicalContext.CONTENT, XmlLexicalContext.after( XmlRegionType.MARKUP, '>' ));
+		Assert.assertEquals( XmlLexicalContext.IN_TAG, XmlLexicalContext.after( XmlRegionType.MARKUP, 'a' ));
+		Assert.assertEquals( XmlLexicalContext.CONTENT, XmlLexicalContext.after( XmlRegionType.COMMENT, '>' ));
+		Assert.assertEquals( XmlLexicalContext.OTHER, XmlLexicalContext.after( XmlRegionType.COMMENT, '-' ));
+		Assert.assertEquals( XmlLexicalContext.AFTER_ATTRIBUTE, XmlLexicalContext.after( XmlRegionType.ATTRIBUTE, 'a' ));
+		Assert.assertEquals( XmlLexicalContext.AFTER_ATTRIBUTE_VALUE, XmlLexicalContext.after( XmlRegionType.ATTRIBUTE_VALUE, '"' ));
+		Assert.assertEquals( XmlLexicalContext.OTHER, XmlLexicalContext.after( XmlRegionType.INSTRUCTION, '>' ));
+		Assert.assertEquals( XmlLexicalContext.OTHER, XmlLexicalContext.after( XmlRegionType.CDATA, '>' ));
+		Assert.assertEquals( XmlLexicalContext.OTHER, XmlLexicalContext.after( XmlRegionType.MARKUP_VALUE, 'a' ));
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testAllowedRegions() throws Exception {
+
+		// Attributes follow mark-up names and attribute values
+		Assert.assertTrue( XmlLexicalContext.IN_TAG.allowsAttribute());
+		Assert.assertTrue( XmlLexicalContext.AFTER_ATTRIBUTE_VALUE.allowsAttribute());
+		Assert.assertFalse( XmlLexicalContext.AFTER_ATTRIBUTE.allowsAttribute());
+		Assert.assertFalse( XmlLexicalContext.CONTENT.allowsAttribute());
+
+		// Attribute values follow attributes
+		Assert.assertTrue( XmlLexicalContext.AFTER_ATTRIBUTE.allowsAttributeValue());
+		Assert.assertFalse( XmlLexicalContext.IN_TAG.allowsAttributeValue());
+
+		// Text follows complete mark-ups
+		Assert.assertTrue( XmlLexicalContext.CONTENT.allowsMarkupValue());
+		Assert.assertFalse( XmlLexicalContext.IN_TAG.allowsMarkupValue());
+		Assert.assertFalse( XmlLexicalContext.OTHER.allowsMarkupValue());
+
+		// Anything may start a document
+		Assert.assertTrue( XmlLexicalContext.START.allowsAttribute());
+		Assert.assertTrue( XmlLexicalContext.START.allowsAttributeValue());
+		Assert.assertTrue( XmlLexicalContext.START.allowsMarkupValue());
+	}
+}
@@ -0,0 +1,232 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link XmlRegionAnalyzer#analyzeXmlBatch(Iterable)} and its variants.
+ * @author Vincent Zurczak
+ */
+public class XmlRegionAnalyzerBatchTest {
+
+	private static final String[] FRAGMENTS = {
+		"<", ">", "/>", "</", "<?", "?>", "<!--", "-->", "<![CDATA[", "]]>",
+		"=", "\"", " ", "\n\t", "a", "test", "value"
+	};
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testResultsInOrder() throws Exception {
+
+		List<String> documents = createDocuments( 500 );
+		XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+		List<List<XmlRegion>> results = analyzer.analyzeXmlBatch( documents );
+
+		Assert.assertEquals( documents.size(), results.size());
+		for( int i=0; i<documents.size(); i++ )
+			Assert.assertEquals( analyzer.analyzeXml( documents.get( i )), results.get( i ));
+
+		Assert.assertTrue( analyzer.analyzeXmlBatch( new ArrayList<String> ()).isEmpty());
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testHandlerAndBufferReuse() throws Exception {
+
+		final List<String> documents = createDocuments( 300 );
+		final XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+		final Map<XmlRegionBuffer,Boolean> buffers = Collections.synchronizedMap( new IdentityHashMap<XmlRegionBuffer,Boolean> ());
+		final AtomicInteger errors = new AtomicInteger();
+		final boolean[] seen = new boolean[ documents.size()];
+
+		ExecutorService executor = Executors.newFixedThreadPool( 4 );
+		try {
+			analyzer.analyzeXmlBatch( documents, new XmlRegionBatchHandler() {
+				@Override
+				public void onDocument( int index, CharSequence xml, XmlRegionBuffer regions ) {
+
+					buffers.put( regions, Boolean.TRUE );
+					synchronized( seen ) {
+						seen[ index ] = true;
+					}
+
+					if( xml != documents.get( index ) || ! analyzer.analyzeXml( documents.get( index )).equals( regions.asList()))
+						errors.incrementAndGet();
+				}
+
+			}, executor, 4 );
+
+		} finally {
+			executor.shutdownNow();
+		}
+
+		Assert.assertEquals( 0, errors.get());
+		Assert.assertTrue( buffers.size() <= 4 );
+		for( boolean b : seen )
+			Assert.assertTrue( b );
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testFailuresAreThrown() throws Exception {
+
+		List<String> documents = createDocuments( 100 );
+		ExecutorService executor = Executors.newFixedThreadPool( 3 );
+		final AtomicInteger count = new AtomicInteger();
+		try {
+			new XmlRegionAnalyzer().analyzeXmlBatch( documents, new XmlRegionBatchHandler() {
+				@Override
+				public void onDocument( int index, CharSequence xml, XmlRegionBuffer regions ) {
+					if( count.incrementAndGet() == 10 )
+						throw new IllegalStateException( "for test" );
+				}
+
+			}, executor, 3 );
+
+			Assert.fail( "An exception was expected." );
+
+		} catch( IllegalStateException e ) {
+			Assert.assertEquals( "for test", e.getMessage());
+
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// The other workers stopped
+		Assert.assertTrue( count.get() < 100 );
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testInterruptionWaitsForTheWorkers() throws Exception {
+
+		final CountDownLatch entered = new CountDownLatch( 1 );
+		final CountDownLatch release = new CountDownLatch( 1 );
+		final AtomicInteger active = new AtomicInteger();
+		final Thread caller = Thread.currentThread();
+
+		Thread interrupter = new Thread() {
+			@Override
+			public void run() {
+				try {
+					entered.await();
+					caller.interrupt();
+					Thread.sleep( 200 );
+
+				} catch( InterruptedException e ) {
+					// nothing
+
+				} finally {
+					release.countDown();
+				}
+			}
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool( 2 );
+		interrupter.start();
+		try {
+			new XmlRegionAnalyzer().analyzeXmlBatch( createDocuments( 10 ), new XmlRegionBatchHandler() {
+				@Override
+				public void onDocument( int index, CharSequence xml, XmlRegionBuffer regions ) {
+
+					active.incrementAndGet();
+					entered.countDown();
+					try {
+						release.await( 5, TimeUnit.SECONDS );
+
+					} catch( InterruptedException e ) {
+						Thread.currentThread().interrupt();
+
+					} finally {
+						active.decrementAndGet();
+					}
+				}
+
+			}, executor, 2 );
+
+			Assert.fail( "An InterruptedException was expected." );
+
+		} catch( InterruptedException e ) {
+			// No handler is running once the exception is thrown
+			Assert.assertEquals( 0, active.get());
+			Assert.assertTrue( Thread.interrupted());
+
+		} finally {
+			interrupter.join();
+			executor.shutdownNow();
+		}
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test( expected = IllegalArgumentException.class )
+	public void testInvalidParallelism() throws Exception {
+		new XmlRegionAnalyzer().analyzeXmlBatch( createDocuments( 1 ), XmlRegionBatch.ExecutorHolder.EXECUTOR, 0 );
+	}
+
+
+	/**
+	 * @param count the number of documents to create
+	 * @return a non-null list of random (and most of the time invalid) documents
+	 */
+	private static List<String> createDocuments( int count ) {
+
+		Random random = new Random( 11 );
+		List<String> result = new ArrayList<> ();
+		for( int i=0; i<count; i++ ) {
+			StringBuilder sb = new StringBuilder();
+			int length = random.nextInt( 200 );
+			for( int j=0; j<length; j++ )
+				sb.append( FRAGMENTS[ random.nextInt( FRAGMENTS.length )]);
+
+			result.add( sb.toString());
+		}
+
+		return result;
+	}
+}
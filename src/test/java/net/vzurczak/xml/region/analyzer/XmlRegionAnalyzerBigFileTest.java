@@ -0,0 +1,76 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * A unit test for {@link XmlRegionAnalyzer#analyzeXml(java.nio.file.Path, XmlRegionHandler)} with a file bigger than 2 GB.
+ * <p>
+ * It is kept apart so that it runs in its own JVM, which takes a few seconds.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+public class XmlRegionAnalyzerBigFileTest {
+
+	private static final Charset UTF8 = Charset.forName( "UTF-8" );
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testFileBiggerThanTwoGigaBytes() throws Exception {
+
+		// A sparse file: more than 2 GB of zeros (read as a single attribute), then a mark-up
+		File file = this.folder.newFile();
+		long size = Integer.MAX_VALUE + 1024L * 1024;
+		try( RandomAccessFile raf = new RandomAccessFile( file, "rw" )) {
+			raf.setLength( size - 4 );
+			raf.seek( size - 4 );
+			raf.write( "<a/>".getBytes( UTF8 ));
+		}
+
+		final long[] ends = new long[ 2 ];
+		new XmlRegionAnalyzer().analyzeXml( file.toPath(), new XmlRegionHandler() {
+			@Override
+			public void onRegion( XmlRegionType xmlRegionType, long start, long end ) {
+				Assert.assertEquals( start, ends[ 0 ]);
+				ends[ 0 ] = end;
+				ends[ 1 ] ++;
+			}
+		});
+
+		Assert.assertEquals( ends[ 0 ], size );
+		Assert.assertEquals( ends[ 1 ], 2 );
+	}
+}
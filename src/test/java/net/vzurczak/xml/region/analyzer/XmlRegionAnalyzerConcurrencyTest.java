@@ -0,0 +1,122 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies a single {@link XmlRegionAnalyzer} can be shared by several threads.
+ * @author Vincent Zurczak
+ */
+public class XmlRegionAnalyzerConcurrencyTest {
+
+	private static final int THREADS = 32;
+	private static final int ITERATIONS = 50;
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testSharedAnalyzer() throws Exception {
+
+		// Prepare the documents and compute the expected results with a single thread
+		final String[] documents = {
+			XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" ),
+			"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<test a=\"b\" c = \"d\">\n\t<!-- comment -->\n\tvalue\n</test>",
+			"<test><![CDATA[<sender>John Smith</sender>]]></test>",
+			"<root>\n  <a/>\n  <b attr=\"v\">  text  </b>\n</root>\n",
+			"<![CDATA",
+			""
+		};
+
+		final XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+		final List<List<String>> expected = new ArrayList<> ();
+		for( String document : documents )
+			expected.add( toStrings( analyzer.analyzeXml( document )));
+
+		// Hammer the same analyzer from many threads
+		final CountDownLatch startSignal = new CountDownLatch( 1 );
+		ExecutorService executor = Executors.newFixedThreadPool( THREADS );
+		List<Future<Integer>> futures = new ArrayList<> ();
+		try {
+			for( int t=0; t<THREADS; t++ ) {
+				final int threadIndex = t;
+				futures.add( executor.submit( new Callable<Integer>() {
+					@Override
+					public Integer call() throws Exception {
+
+						startSignal.await();
+						int errors = 0;
+						XmlRegionBuffer buffer = new XmlRegionBuffer();
+						for( int i=0; i<ITERATIONS; i++ ) {
+
+							// Alternate between documents, and between the two entry points
+							int index = (threadIndex + i) % documents.length;
+							List<XmlRegion> regions;
+							if( i % 2 == 0 ) {
+								regions = analyzer.analyzeXml( documents[ index ]);
+							} else {
+								analyzer.analyzeXml( documents[ index ], buffer );
+								regions = buffer.asList();
+							}
+
+							if( ! expected.get( index ).equals( toStrings( regions )))
+								errors ++;
+						}
+
+						return errors;
+					}
+				}));
+			}
+
+			startSignal.countDown();
+			for( Future<Integer> future : futures )
+				Assert.assertEquals( future.get( 2, TimeUnit.MINUTES ).intValue(), 0 );
+
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+
+	/**
+	 * Converts regions into strings, so that they can be compared.
+	 * @param regions a non-null list of regions
+	 * @return a non-null list of strings
+	 */
+	private static List<String> toStrings( List<XmlRegion> regions ) {
+
+		List<String> result = new ArrayList<> ();
+		for( XmlRegion xr : regions )
+			result.add( xr.toString());
+
+		return result;
+	}
+}
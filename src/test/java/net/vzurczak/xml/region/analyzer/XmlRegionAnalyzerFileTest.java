@@ -0,0 +1,105 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link XmlRegionAnalyzer#analyzeXml(FileChannel, XmlRegionHandler, int)}.
+ * @author Vincent Zurczak
+ */
+public class XmlRegionAnalyzerFileTest {
+
+	private static final Charset UTF8 = Charset.forName( "UTF-8" );
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testSameRegionsAsBytes() throws Exception {
+
+		String big = "abc - ] > ? \\\" é　中 ";
+		for( int i=0; i<6; i++ )
+			big += big;
+
+		String[] inputs = {
+			"",
+			"<test attr=\"été\">Ça marche ✓</test>",
+			"<test>　<a/> 　text　</test>",
+			"<test><!--" + big + "--></test>",
+			"<test><![CDATA[" + big + "]]></test>",
+			"<?" + big + "?><test/>",
+			"<?xml version=\"1.0\"><test>" + big + "</test>",
+			"<test a=\"" + big + "\"/>",
+			XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" )
+		};
+
+		for( String input : inputs ) {
+			for( int segmentSize : new int[] { 1, 40, 41, 42, 1000, XmlRegionAnalyzer.DEFAULT_SEGMENT_SIZE })
+				compare( input, segmentSize );
+		}
+
+		Random random = new Random( 5 );
+		StringBuilder sb = new StringBuilder();
+		while( sb.length() < 20000 )
+			sb.append( inputs[ 1 + random.nextInt( 4 )]);
+
+		for( int i=0; i<20; i++ )
+			compare( sb.toString(), 40 + random.nextInt( 200 ));
+	}
+
+
+	/**
+	 * Analyzes a text as a mapped file and as bytes, and compares the results.
+	 * @param input the text
+	 * @param segmentSize the segment size
+	 * @throws Exception
+	 */
+	private void compare( String input, int segmentSize ) throws Exception {
+
+		byte[] bytes = input.getBytes( UTF8 );
+		File file = this.folder.newFile();
+		Files.write( file.toPath(), bytes );
+
+		XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+		XmlRegionBuffer expected = new XmlRegionBuffer();
+		analyzer.analyzeXml( bytes, expected );
+
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+		try( FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ )) {
+			analyzer.analyzeXml( channel, buffer, segmentSize );
+		}
+
+		Assert.assertEquals( input, expected.asList().toString(), buffer.asList().toString());
+	}
+}
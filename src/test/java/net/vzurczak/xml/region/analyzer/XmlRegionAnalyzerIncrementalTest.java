@@ -0,0 +1,194 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link XmlRegionAnalyzer#reanalyzeXml(CharSequence, XmlRegionBuffer, int, int, int)}.
+ * @author Vincent Zurczak
+ */
+public class XmlRegionAnalyzerIncrementalTest {
+
+	private static final String[] FRAGMENTS = {
+		"<", ">", "/>", "</", "<?", "?>", "<!--", "-->", "<![CDATA[", "]]>",
+		"=", "\"", "'", " ", "\n\t", "a", "test", "value", "?", "!", "-", "]"
+	};
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testSimpleModifications() throws Exception {
+
+		// Text, attribute, white spaces merged into a mark-up value
+		verify( "<test>value</test>", 8, 0, "lu" );
+		verify( "<test a=\"b\">value</test>", 7, 0, " c=\"d\"" );
+		verify( "<test>  \n <a/></test>", 6, 0, "text" );
+		verify( "<test>  \n value</test>", 10, 5, "" );
+
+		// Comments and CDATA sections that are opened or closed
+		verify( "<test><!-- comment <a/> --></test>", 18, 0, "-->" );
+		verify( "<test><!-- comment --> <a/></test>", 19, 3, "" );
+		verify( "<test><![CDATA[ <a/> ]]></test>", 21, 3, "" );
+
+		// An instruction that is closed later
+		verify( "<?xml version=\"1.0\"><test/>", 19, 0, "?" );
+		verify( "<?xml version=\"1.0\"?><test/>", 19, 1, "" );
+
+		// Edits at the boundaries
+		verify( "", 0, 0, "<test/>" );
+		verify( "<test/>", 0, 7, "" );
+		verify( "<test/>", 0, 0, " " );
+		verify( "<test/>", 7, 0, "text" );
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testRandomModifications() throws Exception {
+
+		Random random = new Random( 42 );
+		XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+
+		String xml = XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" );
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+		analyzer.analyzeXml( xml, buffer );
+
+		for( int i=0; i<300; i++ ) {
+			int offset = random.nextInt( xml.length() + 1 );
+			int removed = random.nextInt( 3 ) == 0 ? random.nextInt( Math.min( 20, xml.length() - offset ) + 1 ) : 0;
+			String inserted = random.nextInt( 4 ) == 0 ? "" : FRAGMENTS[ random.nextInt( FRAGMENTS.length )];
+
+			xml = xml.substring( 0, offset ) + inserted + xml.substring( offset + removed );
+			analyzer.reanalyzeXml( xml, buffer, offset, removed, inserted.length());
+			compare( xml, buffer );
+		}
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testRandomDocuments() throws Exception {
+
+		Random random = new Random( 7 );
+		XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+
+		for( int i=0; i<2000; i++ ) {
+			StringBuilder sb = new StringBuilder();
+			for( int j=random.nextInt( 12 ); j>0; j-- )
+				sb.append( FRAGMENTS[ random.nextInt( FRAGMENTS.length )]);
+
+			String xml = sb.toString();
+			analyzer.analyzeXml( xml, buffer );
+
+			int offset = random.nextInt( xml.length() + 1 );
+			int removed = random.nextInt( xml.length() - offset + 1 );
+			String inserted = FRAGMENTS[ random.nextInt( FRAGMENTS.length )];
+
+			xml = xml.substring( 0, offset ) + inserted + xml.substring( offset + removed );
+			analyzer.reanalyzeXml( xml, buffer, offset, removed, inserted.length());
+			compare( xml, buffer );
+		}
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testDamageIsLocal() throws Exception {
+
+		String xml = XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" );
+		XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+		analyzer.analyzeXml( xml, buffer );
+
+		// Type a character in the middle of the document
+		int offset = xml.length() / 2;
+		while( ! Character.isLetter( xml.charAt( offset )))
+			offset ++;
+
+		xml = xml.substring( 0, offset ) + "x" + xml.substring( offset );
+		XmlRegionDamage damage = analyzer.reanalyzeXml( xml, buffer, offset, 0, 1 );
+		compare( xml, buffer );
+
+		Assert.assertTrue( damage.toString(), damage.getStart() <= offset );
+		Assert.assertTrue( damage.toString(), damage.getEnd() > offset );
+		Assert.assertTrue( damage.toString(), damage.getEnd() - damage.getStart() < 1000 );
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test( expected = IllegalArgumentException.class )
+	public void testInconsistentModification() throws Exception {
+
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+		new XmlRegionAnalyzer().analyzeXml( "<test/>", buffer );
+		new XmlRegionAnalyzer().reanalyzeXml( "<test/>", buffer, 0, 0, 1 );
+	}
+
+
+	/**
+	 * Modifies a document and verifies the updated regions.
+	 * @param xml the original document
+	 * @param offset the position of the modification
+	 * @param removedLength the number of removed characters
+	 * @param inserted the inserted text
+	 */
+	private static void verify( String xml, int offset, int removedLength, String inserted ) {
+
+		XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+		analyzer.analyzeXml( xml, buffer );
+
+		String newXml = xml.substring( 0, offset ) + inserted + xml.substring( offset + removedLength );
+		XmlRegionDamage damage = analyzer.reanalyzeXml( newXml, buffer, offset, removedLength, inserted.length());
+		compare( newXml, buffer );
+
+		Assert.assertTrue( damage.toString(), damage.getStart() <= offset );
+		Assert.assertTrue( damage.toString(), damage.getEnd() >= offset + inserted.length());
+	}
+
+
+	/**
+	 * Compares updated regions with those of a complete analysis.
+	 * @param xml the document
+	 * @param buffer the updated regions
+	 */
+	private static void compare( String xml, XmlRegionBuffer buffer ) {
+
+		List<XmlRegion> expected = new XmlRegionAnalyzer().analyzeXml( xml );
+		Assert.assertEquals( xml, expected.size(), buffer.size());
+		for( int i=0; i<expected.size(); i++ )
+			Assert.assertEquals( xml, expected.get( i ).toString(), buffer.asList().get( i ).toString());
+	}
+}
@@ -0,0 +1,155 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link XmlRegionAnalyzer#analyzeXmlInParallel(CharSequence, XmlRegionHandler, ForkJoinPool)}.
+ * @author Vincent Zurczak
+ */
+public class XmlRegionAnalyzerParallelTest {
+
+	private static final String[] FRAGMENTS = {
+		"<", ">", "/>", "</", "<?", "?>", "<!--", "-->", "<![CDATA[", "]]>",
+		"=", "\"", "'", " ", "\n\t", "a", "test", "value", "?", "!", "-", "]"
+	};
+
+	private ForkJoinPool pool;
+
+
+	/**
+	 * Creates the pool.
+	 */
+	@Before
+	public void createPool() {
+		this.pool = new ForkJoinPool( 4 );
+	}
+
+
+	/**
+	 * Shuts down the pool.
+	 */
+	@After
+	public void shutdownPool() {
+		this.pool.shutdown();
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testBigDocument() throws Exception {
+
+		String example = XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" );
+		StringBuilder sb = new StringBuilder();
+		for( int i=0; i<20; i++ )
+			sb.append( example );
+
+		String xml = sb.toString();
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+		new XmlRegionAnalyzer().analyzeXmlInParallel( xml, buffer, this.pool );
+		compare( xml, buffer );
+
+		buffer.clear();
+		new XmlRegionAnalyzer().analyzeXmlInParallel( xml, buffer );
+		compare( xml, buffer );
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testSmallChunks() throws Exception {
+
+		String[] inputs = {
+			"",
+			"<test/>",
+			"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<test/>",
+			"<test> \n <!-- A comment --> \n Essai  <!-- A second comment --></test>",
+			"<test a=\"b>\" c = \"d\"   e=\"f\"  >value</test>",
+			"<test><![CDATA[<sender>John Smith</sender>]]>after</test>",
+			"<test><!-- <a> <b> --> <c/></test>",
+			"<?xml version=\"1.0\"><a><b></b></a>",
+			"<a></a><![O <b> <c>",
+			XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" )
+		};
+
+		for( String input : inputs ) {
+			for( int chunkSize : new int[] { 1, 7, 100, 5000 })
+				compare( input, chunkSize );
+		}
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testRandomDocuments() throws Exception {
+
+		Random random = new Random( 11 );
+		for( int i=0; i<3000; i++ ) {
+			StringBuilder sb = new StringBuilder();
+			for( int j=random.nextInt( 100 ); j>0; j-- )
+				sb.append( FRAGMENTS[ random.nextInt( FRAGMENTS.length )]);
+
+			compare( sb.toString(), 1 + random.nextInt( 20 ));
+		}
+	}
+
+
+	/**
+	 * Analyzes a document in parallel with a given chunk size and compares the result with a sequential analysis.
+	 * @param xml the document
+	 * @param chunkSize the chunk size
+	 */
+	private void compare( String xml, int chunkSize ) {
+
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+		XmlRegionParallelLexer.analyze( xml, buffer, this.pool, chunkSize );
+		compare( xml, buffer );
+	}
+
+
+	/**
+	 * Compares regions with those of a sequential analysis.
+	 * @param xml the document
+	 * @param buffer the regions
+	 */
+	private static void compare( String xml, XmlRegionBuffer buffer ) {
+
+		XmlRegionBuffer expected = new XmlRegionBuffer();
+		new XmlRegionAnalyzer().analyzeXml( xml, expected );
+		Assert.assertEquals( xml, expected.size(), buffer.size());
+		for( int i=0; i<expected.size(); i++ ) {
+			Assert.assertEquals( xml, expected.getXmlRegionType( i ), buffer.getXmlRegionType( i ));
+			Assert.assertEquals( xml, expected.getStart( i ), buffer.getStart( i ));
+			Assert.assertEquals( xml, expected.getEnd( i ), buffer.getEnd( i ));
+		}
+	}
+}
@@ -0,0 +1,226 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * Unit tests for {@link XmlRegionAnalyzer#analyzeXmlRange(CharSequence, int, int, XmlRegionHandler)}.
+ * @author Vincent Zurczak
+ */
+public class XmlRegionAnalyzerRangeTest {
+
+	private static final String ITEM =
+			"\t<item id=\"1\" name=\"a > b\">\n"
+			+ "\t\t<!-- <old id=\"0\"/> -->\n"
+			+ "\t\tSome text content &gt; <b>bold</b>\n"
+			+ "\t\t<![CDATA[ <sender>John Smith</sender> ]]>\n"
+			+ "\t\t<?instruction value?>\n"
+			+ "\t</item>\n";
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testSameRegionsThanACompleteAnalysis() throws Exception {
+
+		StringBuilder sb = new StringBuilder( "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<root>\n" );
+		for( int i=0; i<100; i++ )
+			sb.append( ITEM );
+
+		sb.append( XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" ));
+		sb.append( "</root>" );
+		String xml = sb.toString();
+
+		List<XmlRegion> all = new XmlRegionAnalyzer().analyzeXml( xml );
+
+		Random random = new Random( 8 );
+		for( int i=0; i<2000; i++ ) {
+			int from = random.nextInt( xml.length() + 1 );
+			int to = Math.min( xml.length(), from + random.nextInt( 5000 ));
+			compare( xml, all, from, to );
+		}
+
+		compare( xml, all, 0, xml.length());
+		compare( xml, all, 0, 0 );
+		compare( xml, all, xml.length(), xml.length());
+		compare( xml, all, xml.length() - 1, xml.length());
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testRangeInCommentsAndCDataSections() throws Exception {
+
+		String xml = "<root><!-- <a/> <b/> --> text <![CDATA[ <c/> <d/> ]]><e/></root>";
+		List<XmlRegion> all = new XmlRegionAnalyzer().analyzeXml( xml );
+
+		for( int from = 0; from <= xml.length(); from ++ ) {
+			for( int to = from; to <= xml.length(); to ++ )
+				compare( xml, all, from, to );
+		}
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testTextAfterACDataSection() throws Exception {
+
+		// The text after "]]>" is an unexpected region that goes until the end of the document
+		StringBuilder sb = new StringBuilder( "<r><s><![CDATA[x]]> tail</s>" );
+		for( int i=0; i<5; i++ )
+			sb.append( "<e a=\"1\">t</e>" );
+
+		String xml = sb.append( "</r>" ).toString();
+		List<XmlRegion> all = new XmlRegionAnalyzer().analyzeXml( xml );
+		Assert.assertEquals( new XmlRegion( XmlRegionType.UNEXPECTED, 20, xml.length()), all.get( all.size() - 1 ));
+
+		XmlRegionCheckpoints checkpoints = new XmlRegionCheckpoints( 1 );
+		new XmlRegionAnalyzer().analyzeXml( xml, new XmlRegionBuffer(), checkpoints );
+
+		for( int from = 0; from <= xml.length(); from ++ ) {
+			for( int to = from; to <= xml.length(); to ++ ) {
+
+				// Checkpoints give the same regions than a complete analysis
+				XmlRegionBuffer buffer = new XmlRegionBuffer();
+				new XmlRegionAnalyzer().analyzeXmlRange( xml, from, to, buffer, checkpoints );
+				Assert.assertEquals( "[" + from + ", " + to + "[", expected( all, from, to ), toString( buffer.asList()));
+
+				// The backward search misses the context, but the range is still covered
+				buffer.clear();
+				new XmlRegionAnalyzer().analyzeXmlRange( xml, from, to, buffer );
+				int covered = from;
+				for( XmlRegion xr : buffer.asList()) {
+					Assert.assertTrue( xr.getStart() <= covered && xr.getEnd() > covered );
+					covered = xr.getEnd();
+				}
+
+				Assert.assertTrue( covered >= to );
+			}
+		}
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testAnalysisStopsAfterTheRange() throws Exception {
+
+		StringBuilder sb = new StringBuilder( "<root>\n" );
+		for( int i=0; i<10000; i++ )
+			sb.append( ITEM );
+
+		final String xml = sb.append( "</root>" ).toString();
+		final int[] bounds = { Integer.MAX_VALUE, 0 };
+		CharSequence spy = new CharSequence() {
+			@Override
+			public char charAt( int index ) {
+				bounds[ 0 ] = Math.min( bounds[ 0 ], index );
+				bounds[ 1 ] = Math.max( bounds[ 1 ], index );
+				return xml.charAt( index );
+			}
+
+			@Override
+			public int length() {
+				return xml.length();
+			}
+
+			@Override
+			public CharSequence subSequence( int start, int end ) {
+				return xml.subSequence( start, end );
+			}
+		};
+
+		int from = xml.length() / 2;
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+		new XmlRegionAnalyzer().analyzeXmlRange( spy, from, from + 1000, buffer );
+
+		Assert.assertFalse( buffer.isEmpty());
+		Assert.assertTrue( "" + bounds[ 0 ], bounds[ 0 ] >= from - XmlRegionViewport.LOOKBEHIND - 1000 );
+		Assert.assertTrue( "" + bounds[ 1 ], bounds[ 1 ] <= from + 2000 );
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test( expected = IllegalArgumentException.class )
+	public void testInvalidRange() throws Exception {
+		new XmlRegionAnalyzer().analyzeXmlRange( "<test/>", 5, 8, new XmlRegionBuffer());
+	}
+
+
+	/**
+	 * Compares the regions found for a range with those of a complete analysis.
+	 * @param xml the XML text
+	 * @param all the regions of the complete analysis
+	 * @param from the start of the range
+	 * @param to the end of the range
+	 */
+	private static void compare( String xml, List<XmlRegion> all, int from, int to ) {
+
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+		new XmlRegionAnalyzer().analyzeXmlRange( xml, from, to, buffer );
+		Assert.assertEquals( "[" + from + ", " + to + "[", expected( all, from, to ), toString( buffer.asList()));
+	}
+
+
+	/**
+	 * @param all the regions of the complete analysis
+	 * @param from the start of the range
+	 * @param to the end of the range
+	 * @return a string representation of the regions that intersect the range
+	 */
+	private static String expected( List<XmlRegion> all, int from, int to ) {
+
+		StringBuilder sb = new StringBuilder();
+		for( XmlRegion xr : all ) {
+			if( xr.getEnd() > from && xr.getStart() < to && from < to )
+				sb.append( xr ).append( "\n" );
+		}
+
+		return sb.toString();
+	}
+
+
+	/**
+	 * @param regions a list of regions
+	 * @return a string representation of the regions
+	 */
+	private static String toString( List<XmlRegion> regions ) {
+
+		StringBuilder sb = new StringBuilder();
+		for( XmlRegion xr : regions )
+			sb.append( xr ).append( "\n" );
+
+		return sb.toString();
+	}
+}
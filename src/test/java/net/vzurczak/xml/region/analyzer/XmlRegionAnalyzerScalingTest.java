@@ -0,0 +1,98 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * Verifies documents made up of indented text nodes are analyzed in a single pass.
+ * <p>
+ * Every text node starts with white spaces that must be merged into the mark-up value.
+ * The analysis time is measured by <code>XmlRegionScalingBenchmark</code> (benchmarks profile).
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+public class XmlRegionAnalyzerScalingTest {
+
+	private static final String ITEM = "\t<item>\n\t\tSome text content\n\t</item>\n";
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testIndentedTextNodes() throws Exception {
+
+		XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+		for( int count : new int[] { 0, 1, 10, 1000 }) {
+			String xml = buildDocument( count );
+			analyzer.analyzeXml( xml, buffer );
+			verifyTextNodes( buffer, xml, count );
+		}
+	}
+
+
+	/**
+	 * Builds a document made up of indented text nodes.
+	 * @param count the number of text nodes
+	 * @return a non-null string
+	 */
+	private static String buildDocument( int count ) {
+
+		StringBuilder sb = new StringBuilder();
+		sb.append( "<root>\n" );
+		for( int i=0; i<count; i++ )
+			sb.append( ITEM );
+
+		sb.append( "</root>" );
+		return sb.toString();
+	}
+
+
+	/**
+	 * Verifies the leading white spaces were merged into the text nodes.
+	 * @param buffer the analyzed regions
+	 * @param xml the document
+	 * @param count the number of text nodes
+	 */
+	private static void verifyTextNodes( XmlRegionBuffer buffer, String xml, int count ) {
+
+		// <root>, then for every item: \n\t, <item>, \n\t\tSome text content\n\t, </item>, and finally \n, </root>
+		Assert.assertEquals( 4 * count + 3, buffer.size());
+		Assert.assertEquals( XmlRegionType.MARKUP, buffer.getXmlRegionType( 0 ));
+		for( int i=0; i<count; i++ ) {
+			int index = 1 + 4 * i;
+			Assert.assertEquals( XmlRegionType.WHITESPACE, buffer.getXmlRegionType( index ));
+			Assert.assertEquals( XmlRegionType.MARKUP, buffer.getXmlRegionType( index + 1 ));
+			Assert.assertEquals( XmlRegionType.MARKUP_VALUE, buffer.getXmlRegionType( index + 2 ));
+			Assert.assertEquals( "\n\t\tSome text content\n\t", xml.substring( buffer.getStart( index + 2 ), buffer.getEnd( index + 2 )));
+			Assert.assertEquals( XmlRegionType.MARKUP, buffer.getXmlRegionType( index + 3 ));
+		}
+
+		Assert.assertEquals( XmlRegionType.WHITESPACE, buffer.getXmlRegionType( buffer.size() - 2 ));
+		Assert.assertEquals( XmlRegionType.MARKUP, buffer.getXmlRegionType( buffer.size() - 1 ));
+		Assert.assertEquals( xml.length(), buffer.getEnd( buffer.size() - 1 ));
+	}
+}
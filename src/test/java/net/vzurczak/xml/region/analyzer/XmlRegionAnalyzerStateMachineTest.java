@@ -0,0 +1,131 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.vzurczak.xml.region.analyzer.XmlRegionAnalyzer.LexerEngine;
+
+/**
+ * Runs the unit tests of {@link XmlRegionAnalyzer} with the state machine engine,
+ * and verifies both engines find the same regions.
+ * @author Vincent Zurczak
+ */
+public class XmlRegionAnalyzerStateMachineTest extends XmlRegionAnalyzerTest {
+
+	private static final String[] FRAGMENTS = {
+		"<", ">", "/>", "/", "</", "<?", "?>", "?", "<!--", "-->", "-", "--", "<![CDATA[", "]]>", "]",
+		"<!", "<![CD", "=", "\"", "\\\"", "\\", "'", " ", "\n\t", "\u3000", "a", "test", "value", "é"
+	};
+
+
+	@Override
+	protected XmlRegionAnalyzer newAnalyzer() {
+		return new XmlRegionAnalyzer( LexerEngine.STATE_MACHINE );
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testSameRegionsThanTheScanner() throws Exception {
+
+		String[] inputs = {
+			"",
+			"  \n ",
+			"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<test/>",
+			"<?xml version=\"1.0\" encoding=\"UTF-8\">\n<test a=\"b\">value</test>",
+			"<test> \n <!-- A comment --> \n Essai  <!-- A second --->--></test>",
+			"<test a=\"b\" c = \"d\\\"e\"   e=\"f\"  >value / text</test>",
+			"<test><![CDATA[<sender>John ]]]> Smith</sender>]]></test>",
+			" / text <a>/ text</a> =\"b\" c",
+			"<a b c= =\"d\"/ e>",
+			XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" )
+		};
+
+		for( String input : inputs )
+			compare( input );
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testSameRegionsForRandomDocuments() throws Exception {
+
+		Random random = new Random( 12 );
+		for( int i=0; i<20000; i++ ) {
+			StringBuilder sb = new StringBuilder();
+			int count = random.nextInt( 30 );
+			for( int j=0; j<count; j++ )
+				sb.append( FRAGMENTS[ random.nextInt( FRAGMENTS.length )]);
+
+			compare( sb.toString());
+		}
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testSameRegionsForUtf8Bytes() throws Exception {
+
+		String xml = "<test attr=\"été\">\u3000Ça marche ✓</test>";
+		byte[] utf8 = xml.getBytes( Charset.forName( "UTF-8" ));
+
+		XmlRegionBuffer expected = new XmlRegionBuffer();
+		new XmlRegionAnalyzer().analyzeXml( utf8, expected );
+
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+		newAnalyzer().analyzeXml( utf8, buffer );
+		Assert.assertEquals( toString( expected.asList()), toString( buffer.asList()));
+	}
+
+
+	/**
+	 * Analyzes a text with both engines and compares the results.
+	 * @param xml the text
+	 */
+	private void compare( String xml ) {
+		List<XmlRegion> expected = new XmlRegionAnalyzer( LexerEngine.SCANNER ).analyzeXml( xml );
+		Assert.assertEquals( xml, toString( expected ), toString( newAnalyzer().analyzeXml( xml )));
+	}
+
+
+	/**
+	 * @param regions a list of regions
+	 * @return a string representation of these regions
+	 */
+	private static String toString( List<XmlRegion> regions ) {
+
+		StringBuilder sb = new StringBuilder();
+		for( XmlRegion xr : regions )
+			sb.append( xr ).append( "\n" );
+
+		return sb.toString();
+	}
+}
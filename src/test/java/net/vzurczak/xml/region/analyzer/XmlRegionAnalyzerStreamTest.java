@@ -0,0 +1,265 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * Unit tests for the streaming mode of {@link XmlRegionAnalyzer}.
+ * @author Vincent Zurczak
+ */
+public class XmlRegionAnalyzerStreamTest {
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testSameResultsAsStrings() throws Exception {
+
+		String[] inputs = {
+			"",
+			" ",
+			"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<test/>",
+			"<test> \n <!-- A comment --> \n Essai  <!-- A second comment --></test>",
+			"<test a=\"b\" c = \"d\"   e=\"f\"  >value</test>",
+			"<test><![CDATA[<sender>John Smith</sender>]]></test>",
+			"<![CDATA",
+			"<?xml version=\"1.0\" encoding=\"UTF-8\">",
+			XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" )
+		};
+
+		for( String input : inputs ) {
+			for( int bufferSize : new int[] { 1, 50, 100, XmlRegionAnalyzer.DEFAULT_BUFFER_SIZE }) {
+				compare( input, new StringReader( input ), bufferSize );
+				compare( input, new TrickleReader( input ), bufferSize );
+			}
+		}
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testRegionsBiggerThanTheBuffer() throws Exception {
+
+		String big = repeat( "abc - ] > ? \\\" ", 200 );
+		String[] inputs = {
+			"<test>" + big + "</test>",
+			"<test><!--" + big + "--></test>",
+			"<test><![CDATA[" + big + "]]></test>",
+			"<?" + big + "?><test/>",
+			"<test a=\"" + big + "\"/>",
+			"<test" + repeat( "a", 3000 ) + " attr" + repeat( "b", 3000 ) + "=\"\"/>",
+			"<test>" + repeat( " \n\t", 1000 ) + "</test>",
+			"<test>" + repeat( " \n\t", 1000 ) + "value</test>",
+			"<test>" + big,
+			"<test><!--" + big,
+			"<test><![CDATA[" + big,
+			"<![O" + big,
+		};
+
+		for( String input : inputs )
+			compare( input, new StringReader( input ), 64 );
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testInstructionThatIsNeverClosed() throws Exception {
+
+		// It is read again as a mark-up, even when it is bigger than the buffer
+		String input = "<?xml version=\"1.0\" encoding=\"UTF-8\"><test attr=\"value\">" + repeat( "text ", 1000 ) + "</test>";
+		compare( input, new StringReader( input ), 64 );
+
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+		new XmlRegionAnalyzer().analyzeXml( new StringReader( input ), buffer, 64 );
+		Assert.assertEquals( buffer.getXmlRegionType( 0 ), XmlRegionType.MARKUP );
+		Assert.assertEquals( buffer.getEnd( 0 ), 5 );
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testInputStream() throws Exception {
+
+		String input = "<test attr=\"été\">Ça marche ✓</test>";
+		Charset utf8 = Charset.forName( "UTF-8" );
+
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+		new XmlRegionAnalyzer().analyzeXml( new ByteArrayInputStream( input.getBytes( utf8 )), utf8, buffer );
+
+		// Positions are character positions
+		Assert.assertEquals( toString( buffer.asList()), toString( new XmlRegionAnalyzer().analyzeXml( input )));
+		Assert.assertEquals( buffer.getEnd( buffer.size() - 1 ), input.length());
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testBigStream() throws Exception {
+
+		// 20 MB are analyzed with a small buffer, without storing anything
+		final String item = "\t<item id=\"1\"><!-- c -->\n\t\tSome text content\n\t</item>\n";
+		final int count = 20 * 1024 * 1024 / item.length();
+		Reader reader = new Reader() {
+			private int index, position;
+
+			@Override
+			public int read( char[] cbuf, int off, int len ) throws IOException {
+
+				if( this.index == count )
+					return -1;
+
+				int read = Math.min( len, item.length() - this.position );
+				item.getChars( this.position, this.position + read, cbuf, off );
+				this.position += read;
+				if( this.position == item.length()) {
+					this.position = 0;
+					this.index ++;
+				}
+
+				return read;
+			}
+
+			@Override
+			public void close() throws IOException {
+				// nothing
+			}
+		};
+
+		final long[] state = new long[ 2 ];
+		new XmlRegionAnalyzer().analyzeXml( reader, new XmlRegionHandler() {
+			@Override
+			public void onRegion( XmlRegionType xmlRegionType, long start, long end ) {
+				Assert.assertEquals( start, state[ 0 ]);
+				Assert.assertTrue( end > start );
+				state[ 0 ] = end;
+				state[ 1 ] ++;
+			}
+
+		}, 256 );
+
+		Assert.assertEquals( state[ 0 ], (long) count * item.length());
+
+		// item: WS, <item, WS, id, ="1", >, comment, mark-up value, </item> (and a final WS)
+		Assert.assertEquals( state[ 1 ], 9L * count + 1 );
+	}
+
+
+	/**
+	 * Analyzes a text as a string and as a stream, and compares the results.
+	 * @param input the text
+	 * @param reader a reader for the text
+	 * @param bufferSize the buffer size
+	 * @throws IOException
+	 */
+	private static void compare( String input, Reader reader, int bufferSize ) throws IOException {
+
+		XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+		analyzer.analyzeXml( reader, buffer, bufferSize );
+
+		Assert.assertEquals( input, toString( buffer.asList()), toString( analyzer.analyzeXml( input )));
+	}
+
+
+	/**
+	 * @param regions a list of regions
+	 * @return a string representation of these regions
+	 */
+	private static String toString( List<XmlRegion> regions ) {
+
+		StringBuilder sb = new StringBuilder();
+		for( XmlRegion xr : regions )
+			sb.append( xr ).append( "\n" );
+
+		return sb.toString();
+	}
+
+
+	/**
+	 * @param s a string
+	 * @param count a number of times
+	 * @return a string made up of <code>count</code> times <code>s</code>
+	 */
+	private static String repeat( String s, int count ) {
+
+		StringBuilder sb = new StringBuilder();
+		for( int i=0; i<count; i++ )
+			sb.append( s );
+
+		return sb.toString();
+	}
+
+
+	/**
+	 * A reader that returns very few characters at once.
+	 * @author Vincent Zurczak
+	 */
+	private static class TrickleReader extends Reader {
+		private final String s;
+		private int position;
+
+
+		/**
+		 * Constructor.
+		 * @param s the string to read
+		 */
+		TrickleReader( String s ) {
+			this.s = s;
+		}
+
+
+		@Override
+		public int read( char[] cbuf, int off, int len ) throws IOException {
+
+			int read = -1;
+			if( this.position < this.s.length()) {
+				read = Math.min( Math.min( len, 1 + this.position % 3 ), this.s.length() - this.position );
+				this.s.getChars( this.position, this.position + read, cbuf, off );
+				this.position += read;
+			}
+
+			return read;
+		}
+
+
+		@Override
+		public void close() throws IOException {
+			// nothing
+		}
+	}
+}
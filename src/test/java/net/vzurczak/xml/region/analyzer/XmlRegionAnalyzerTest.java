@@ -46,7 +46,7 @@ public class XmlRegionAnalyzerTest {
 	public void testInstructions() throws Exception {
 
 		// Let's try the basics first
-		XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+		XmlRegionAnalyzer analyzer = newAnalyzer();
 		String input = "";
 		List<XmlRegion> regions = analyzer.analyzeXml( input );
 		testRegionsContiguity( regions, input );
@@ -97,7 +97,7 @@ public class XmlRegionAnalyzerTest {
 	@Test
 	public void testInstructionsWithInvalidXmlInstruction() throws Exception{
 
-		XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+		XmlRegionAnalyzer analyzer = newAnalyzer();
 		String input = "<?xml version=\"1.0\" encoding=\"UTF-8\">";
 
 		List<XmlRegion> regions = analyzer.analyzeXml( input );
@@ -116,7 +116,7 @@ public class XmlRegionAnalyzerTest {
 		StringBuilder sb = new StringBuilder( ISTR_STD );
 		sb.append( "\n<test/>" );
 
-		XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+		XmlRegionAnalyzer analyzer = newAnalyzer();
 		List<XmlRegion> regions = analyzer.analyzeXml( sb.toString());
 		testRegionsContiguity( regions, sb.toString());
 
@@ -202,7 +202,7 @@ public class XmlRegionAnalyzerTest {
 		StringBuilder sb = new StringBuilder( ISTR_STD );
 		sb.append( "<!-- Simple Comment -->" );
 
-		XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+		XmlRegionAnalyzer analyzer = newAnalyzer();
 		List<XmlRegion> regions = analyzer.analyzeXml( sb.toString());
 		testRegionsContiguity( regions, sb.toString());
 
@@ -311,7 +311,7 @@ public class XmlRegionAnalyzerTest {
 	public void testAttributes() throws Exception {
 
 		// A single attribute
-		XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+		XmlRegionAnalyzer analyzer = newAnalyzer();
 		StringBuilder sb = new StringBuilder( "<test arg0" );
 		List<XmlRegion> regions = analyzer.analyzeXml( sb.toString());
 		testRegionsContiguity( regions, sb.toString());
@@ -519,7 +519,7 @@ public class XmlRegionAnalyzerTest {
 		// Let's try the basics
 		StringBuilder sb = new StringBuilder( "<test>Essai</test>" );
 
-		XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+		XmlRegionAnalyzer analyzer = newAnalyzer();
 		List<XmlRegion> regions = analyzer.analyzeXml( sb.toString());
 		testRegionsContiguity( regions, sb.toString());
 
@@ -643,7 +643,7 @@ public class XmlRegionAnalyzerTest {
 		sb.append( "]]>" );
 		sb.append( "</test>" );
 
-		XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+		XmlRegionAnalyzer analyzer = newAnalyzer();
 		List<XmlRegion> regions = analyzer.analyzeXml( sb.toString());
 		testRegionsContiguity( regions, sb.toString());
 
@@ -663,11 +663,11 @@ public class XmlRegionAnalyzerTest {
 	@Test
 	public void testInvalidXmls() throws Exception {
 
-		String[] invalids = { ">op", "op", "<op", ">>", "<!", "<![", "<![C", "<![CD", "<![CDA", "<![CDAT", "<![CDATA", "<![O" };
+		String[] invalids = { ">op", "op", "<op", ">>", "<!", "<![", "<![C", "<![CD", "<![CDA", "<![CDAT", "<![CDATA", "<![O", "<?", "<?a?", "/", "/a", "<a /" };
 		for( String s : invalids ) {
 			StringBuilder sb = new StringBuilder( s );
 
-			XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+			XmlRegionAnalyzer analyzer = newAnalyzer();
 			List<XmlRegion> regions = analyzer.analyzeXml( sb.toString());
 			testRegionsContiguity( regions, sb.toString());
 
@@ -690,17 +690,37 @@ public class XmlRegionAnalyzerTest {
 		String test = loadResource( "/StackOverflowExample.xml" );
 		Assert.assertNotNull( test );
 
-		XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+		XmlRegionAnalyzer analyzer = newAnalyzer();
 		List<XmlRegion> regions = analyzer.analyzeXml( test );
 		testRegionsContiguity( regions, test );
 	}
 
 
+	/**
+	 * Since version 2.0, the result is read-only.
+	 * @throws Exception
+	 */
+	@Test( expected = UnsupportedOperationException.class )
+	public void testResultIsReadOnly() throws Exception {
+
+		List<XmlRegion> regions = newAnalyzer().analyzeXml( "<a />" );
+		regions.remove( 0 );
+	}
+
+
+	/**
+	 * @return the analyzer to test
+	 */
+	protected XmlRegionAnalyzer newAnalyzer() {
+		return new XmlRegionAnalyzer();
+	}
+
+
 	/**
 	 * Verifies that all the XML regions in the list are contiguous.
 	 * @param regions the analyzed regions
 	 */
-	private static void testRegionsContiguity( List<XmlRegion> regions, String xml ) {
+	static void testRegionsContiguity( List<XmlRegion> regions, String xml ) {
 
 		int end = 0;
 		for( XmlRegion xr : regions ) {
@@ -718,7 +738,7 @@ public class XmlRegionAnalyzerTest {
 	 * @return a string, never null
 	 * @throws IOException
 	 */
-	private static String loadResource( String resourceLocation ) throws IOException {
+	static String loadResource( String resourceLocation ) throws IOException {
 
 		String result = null;
 		InputStream in = null;
@@ -0,0 +1,146 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * Unit tests for {@link XmlRegionAnalyzer#analyzeXml(ByteBuffer, XmlRegionHandler)}.
+ * @author Vincent Zurczak
+ */
+public class XmlRegionAnalyzerUtf8Test {
+
+	private static final Charset UTF8 = Charset.forName( "UTF-8" );
+	private static final String[] FRAGMENTS = {
+		"<", ">", "/>", "</", "<?", "?>", "<!--", "-->", "<![CDATA[", "]]>",
+		"=", "\"", " ", "\n", "a", "test", "été", "\u3000", "\u2028", "\u00A0", "😀", "中文"
+	};
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testBytePositions() throws Exception {
+
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+		new XmlRegionAnalyzer().analyzeXml( "<a b=\"é\">ç</a>".getBytes( UTF8 ), buffer );
+
+		Assert.assertEquals( buffer.asList().toString(),
+				"[MARKUP [0, 2[, WHITESPACE [2, 3[, ATTRIBUTE [3, 4[, ATTRIBUTE_VALUE [4, 9[, "
+				+ "MARKUP [9, 10[, MARKUP_VALUE [10, 12[, MARKUP [12, 16[]" );
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testSameRegionsAsStrings() throws Exception {
+
+		String[] inputs = {
+			"",
+			"<test attr=\"été\">Ça marche ✓</test>",
+			"<test>\u3000<a/>\u2028\u3000text\u3000</test>",
+			"<test\u3000attr=\"v\"\u2028/>",
+			"<test>\u00A0<a/></test>",
+			"\uFEFF<?xml version=\"1.0\"?><test>😀</test>",
+			XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" )
+		};
+
+		for( String input : inputs )
+			compare( input );
+
+		Random random = new Random( 3 );
+		for( int i=0; i<3000; i++ ) {
+			StringBuilder sb = new StringBuilder();
+			for( int j=random.nextInt( 30 ); j>0; j-- )
+				sb.append( FRAGMENTS[ random.nextInt( FRAGMENTS.length )]);
+
+			compare( sb.toString());
+		}
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testBufferPosition() throws Exception {
+
+		byte[] bytes = "xx<a>é</a>yy".getBytes( UTF8 );
+		ByteBuffer bb = ByteBuffer.wrap( bytes, 2, bytes.length - 4 );
+
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+		new XmlRegionAnalyzer().analyzeXml( bb, buffer );
+		Assert.assertEquals( buffer.asList().toString(), "[MARKUP [0, 3[, MARKUP_VALUE [3, 5[, MARKUP [5, 9[]" );
+		Assert.assertEquals( bb.position(), 2 );
+
+		buffer.clear();
+		new XmlRegionAnalyzer().analyzeXml( bb, new XmlRegionCharPositionHandler( bb, buffer ));
+		Assert.assertEquals( buffer.asList().toString(), "[MARKUP [0, 3[, MARKUP_VALUE [3, 4[, MARKUP [4, 8[]" );
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testInvalidBytes() throws Exception {
+
+		// Overlong encoding of a space, truncated sequences, lone continuation bytes
+		byte[] bytes = { '<', 'a', '>', (byte) 0xE0, (byte) 0x80, (byte) 0xA0, (byte) 0xE3, (byte) 0x80, '<', (byte) 0x80, '/', 'a', '>' };
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+		new XmlRegionAnalyzer().analyzeXml( bytes, buffer );
+
+		Assert.assertEquals( buffer.asList().toString(), "[MARKUP [0, 3[, MARKUP_VALUE [3, 8[, MARKUP [8, 13[]" );
+	}
+
+
+	/**
+	 * Analyzes a text as bytes and as a string, and compares the results.
+	 * @param input the text
+	 */
+	private static void compare( String input ) {
+
+		XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+		ByteBuffer bytes = ByteBuffer.wrap( input.getBytes( UTF8 ));
+
+		final StringBuilder sb = new StringBuilder();
+		analyzer.analyzeXml( bytes, new XmlRegionCharPositionHandler( bytes, new XmlRegionHandler() {
+			@Override
+			public void onRegion( XmlRegionType xmlRegionType, long start, long end ) {
+				sb.append( new XmlRegion( xmlRegionType, (int) start, (int) end )).append( "\n" );
+			}
+		}));
+
+		StringBuilder expected = new StringBuilder();
+		for( XmlRegion xr : analyzer.analyzeXml( input ))
+			expected.append( xr ).append( "\n" );
+
+		Assert.assertEquals( input, expected.toString(), sb.toString());
+	}
+}
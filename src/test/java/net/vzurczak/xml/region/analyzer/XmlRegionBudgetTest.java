@@ -0,0 +1,150 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * Unit tests for {@link XmlRegionAnalyzer#analyzeXml(CharSequence, XmlRegionHandler, XmlRegionBudget)}.
+ * @author Vincent Zurczak
+ */
+public class XmlRegionBudgetTest {
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testMaxLength() throws Exception {
+
+		String xml = XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" );
+		List<XmlRegion> all = new XmlRegionAnalyzer().analyzeXml( xml );
+
+		for( int maxLength = 0; maxLength <= xml.length() + 1; maxLength += 97 ) {
+			XmlRegionBuffer buffer = new XmlRegionBuffer();
+			boolean complete = new XmlRegionAnalyzer().analyzeXml( xml, buffer, new XmlRegionBudget( maxLength, 0, null ));
+
+			// The first regions of a complete analysis, until one that is not a white space reaches the limit
+			int expectedSize = 0;
+			while( expectedSize < all.size()) {
+				XmlRegion xr = all.get( expectedSize ++ );
+				if( xr.getEnd() >= maxLength && xr.getXmlRegionType() != XmlRegionType.WHITESPACE )
+					break;
+			}
+
+			if( maxLength == 0 )
+				expectedSize = 0;
+
+			Assert.assertEquals( "" + maxLength, all.subList( 0, expectedSize ), buffer.asList());
+			Assert.assertEquals( "" + maxLength, expectedSize == all.size(), complete );
+		}
+
+		// No limit
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+		Assert.assertTrue( new XmlRegionAnalyzer().analyzeXml( xml, buffer, new XmlRegionBudget()));
+		Assert.assertEquals( all, buffer.asList());
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testCancellation() throws Exception {
+
+		String xml = XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" );
+		final XmlRegionBudget budget = new XmlRegionBudget();
+		final XmlRegionBuffer buffer = new XmlRegionBuffer();
+
+		boolean complete = new XmlRegionAnalyzer().analyzeXml( xml, new XmlRegionHandler() {
+			@Override
+			public void onRegion( XmlRegionType xmlRegionType, long start, long end ) {
+				buffer.onRegion( xmlRegionType, start, end );
+				if( buffer.size() == 10 )
+					budget.cancel();
+			}
+
+		}, budget );
+
+		Assert.assertFalse( complete );
+		Assert.assertTrue( budget.isCancelled());
+		Assert.assertTrue( buffer.size() >= 10 && buffer.size() <= 11 );
+
+		// A cancelled budget stops the next analyses immediately
+		buffer.clear();
+		Assert.assertFalse( new XmlRegionAnalyzer().analyzeXml( xml, buffer, budget ));
+		Assert.assertEquals( 0, buffer.size());
+		Assert.assertTrue( new XmlRegionAnalyzer().analyzeXml( "", buffer, budget ));
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testDeadline() throws Exception {
+
+		String xml = XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" );
+		XmlRegionBudget budget = new XmlRegionBudget( Long.MAX_VALUE, 20, TimeUnit.MILLISECONDS );
+		Assert.assertFalse( budget.isExpired());
+
+		// A slow handler
+		final int[] count = { 0 };
+		long start = System.nanoTime();
+		boolean complete = new XmlRegionAnalyzer().analyzeXml( xml, new XmlRegionHandler() {
+			@Override
+			public void onRegion( XmlRegionType xmlRegionType, long start, long end ) {
+				count[ 0 ] ++;
+				try {
+					Thread.sleep( 1 );
+
+				} catch( InterruptedException e ) {
+					Thread.currentThread().interrupt();
+				}
+			}
+
+		}, budget );
+
+		Assert.assertFalse( complete );
+		Assert.assertTrue( budget.isExpired());
+		Assert.assertTrue( count[ 0 ] < new XmlRegionAnalyzer().analyzeXml( xml ).size());
+		Assert.assertTrue( System.nanoTime() - start < TimeUnit.SECONDS.toNanos( 2 ));
+
+		// An expired budget stops the next analyses immediately
+		count[ 0 ] = 0;
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+		Assert.assertFalse( new XmlRegionAnalyzer().analyzeXml( xml, buffer, budget ));
+		Assert.assertEquals( 0, buffer.size());
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test( expected = IllegalArgumentException.class )
+	public void testInvalidMaxLength() throws Exception {
+		new XmlRegionBudget( -1, 0, null );
+	}
+}
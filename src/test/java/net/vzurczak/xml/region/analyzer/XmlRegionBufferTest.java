@@ -0,0 +1,173 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * Unit tests for {@link XmlRegionBuffer}.
+ * @author Vincent Zurczak
+ */
+public class XmlRegionBufferTest {
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testAddAndGrow() throws Exception {
+
+		XmlRegionBuffer buffer = new XmlRegionBuffer( 0 );
+		Assert.assertTrue( buffer.isEmpty());
+
+		XmlRegionType[] types = XmlRegionType.values();
+		for( int i=0; i<100; i++ )
+			buffer.add( types[ i % types.length ], i * 2, i * 2 + 2 );
+
+		Assert.assertEquals( buffer.size(), 100 );
+		Assert.assertFalse( buffer.isEmpty());
+		for( int i=0; i<100; i++ ) {
+			Assert.assertEquals( buffer.getXmlRegionType( i ), types[ i % types.length ]);
+			Assert.assertEquals( buffer.getStart( i ), i * 2 );
+			Assert.assertEquals( buffer.getEnd( i ), i * 2 + 2 );
+		}
+
+		buffer.clear();
+		Assert.assertEquals( buffer.size(), 0 );
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test( expected = IndexOutOfBoundsException.class )
+	public void testInvalidIndex() throws Exception {
+
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+		buffer.add( XmlRegionType.MARKUP, 0, 5 );
+		buffer.getStart( 1 );
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testListView() throws Exception {
+
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+		List<XmlRegion> regions = buffer.asList();
+		Assert.assertEquals( regions.size(), 0 );
+
+		buffer.add( XmlRegionType.MARKUP, 0, 6 );
+		buffer.add( XmlRegionType.MARKUP_VALUE, 6, 10 );
+		Assert.assertEquals( regions.size(), 2 );
+
+		XmlRegion xr = regions.get( 1 );
+		Assert.assertEquals( xr.getXmlRegionType(), XmlRegionType.MARKUP_VALUE );
+		Assert.assertEquals( xr.getStart(), 6 );
+		Assert.assertEquals( xr.getEnd(), 10 );
+
+		try {
+			regions.add( xr );
+			Assert.fail( "The list view was expected to be read-only." );
+
+		} catch( UnsupportedOperationException e ) {
+			// nothing
+		}
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testBufferReuse() throws Exception {
+
+		XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+
+		analyzer.analyzeXml( "<test>value</test>", buffer );
+		Assert.assertEquals( buffer.size(), 3 );
+
+		analyzer.analyzeXml( "<test/>", buffer );
+		Assert.assertEquals( buffer.size(), 1 );
+		Assert.assertEquals( buffer.getXmlRegionType( 0 ), XmlRegionType.MARKUP );
+		Assert.assertEquals( buffer.getEnd( 0 ), 7 );
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testSnapshot() throws Exception {
+
+		XmlRegionBuffer buffer = new XmlRegionBuffer( 100 );
+		new XmlRegionAnalyzer().analyzeXml( "<test>value</test>", buffer );
+		List<XmlRegion> snapshot = buffer.snapshot();
+		List<XmlRegion> view = buffer.asList();
+		Assert.assertEquals( view, snapshot );
+
+		// The snapshot does not change with the buffer
+		new XmlRegionAnalyzer().analyzeXml( "<test/>", buffer );
+		Assert.assertEquals( 1, view.size());
+		Assert.assertEquals( 3, snapshot.size());
+		Assert.assertEquals( new XmlRegion( XmlRegionType.MARKUP_VALUE, 6, 11 ), snapshot.get( 1 ));
+
+		try {
+			snapshot.get( 3 );
+			Assert.fail( "An exception was expected." );
+
+		} catch( IndexOutOfBoundsException e ) {
+			// nothing
+		}
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testRegionEquality() throws Exception {
+
+		XmlRegion xr = new XmlRegion( XmlRegionType.MARKUP, 2, 4 );
+		Assert.assertEquals( xr, new XmlRegion( XmlRegionType.MARKUP, 2, 4 ));
+		Assert.assertEquals( xr.hashCode(), new XmlRegion( XmlRegionType.MARKUP, 2, 4 ).hashCode());
+		Assert.assertNotEquals( xr, new XmlRegion( XmlRegionType.ATTRIBUTE, 2, 4 ));
+		Assert.assertNotEquals( xr, new XmlRegion( XmlRegionType.MARKUP, 1, 4 ));
+		Assert.assertNotEquals( xr, new XmlRegion( XmlRegionType.MARKUP, 2, 5 ));
+		Assert.assertNotEquals( xr, null );
+		Assert.assertEquals( "MARKUP [2, 4[", xr.toString());
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	@SuppressWarnings( "deprecation" )
+	public void testDeprecatedConstructor() throws Exception {
+		Assert.assertEquals( new XmlRegion( XmlRegionType.MARKUP, 2, 2 ), new XmlRegion( XmlRegionType.MARKUP, 2 ));
+	}
+}
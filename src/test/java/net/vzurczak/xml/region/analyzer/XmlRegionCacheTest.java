@@ -0,0 +1,198 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link XmlRegionCache}.
+ * @author Vincent Zurczak
+ */
+public class XmlRegionCacheTest {
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testHitsAndMisses() throws Exception {
+
+		String xml = XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" );
+		String expected = new XmlRegionAnalyzer().analyzeXml( xml ).toString();
+
+		XmlRegionCache cache = new XmlRegionCache( new XmlRegionAnalyzer());
+		Assert.assertEquals( expected, cache.analyzeXml( xml ).toString());
+		Assert.assertEquals( 0, cache.getHitCount());
+		Assert.assertEquals( 1, cache.getMissCount());
+
+		// An equal string, but another instance
+		List<XmlRegion> regions = cache.analyzeXml( new String( xml.toCharArray()));
+		Assert.assertEquals( expected, regions.toString());
+		Assert.assertEquals( 1, cache.getHitCount());
+		Assert.assertEquals( 1, cache.size());
+		Assert.assertTrue( cache.getMemoryUsage() > 2L * xml.length());
+
+		// Cached results cannot be modified
+		Assert.assertEquals( regions, cache.analyzeXml( xml ));
+		try {
+			regions.remove( 0 );
+			Assert.fail( "The list should not be modifiable." );
+
+		} catch( UnsupportedOperationException e ) {
+			// nothing
+		}
+
+		// Handlers
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+		cache.analyzeXml( xml, buffer );
+		Assert.assertEquals( expected, buffer.asList().toString());
+		Assert.assertEquals( 3, cache.getHitCount());
+
+		cache.clear();
+		Assert.assertEquals( 0, cache.size());
+		Assert.assertEquals( 0, cache.getMemoryUsage());
+		cache.analyzeXml( xml );
+		Assert.assertEquals( 2, cache.getMissCount());
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testCollisionsAreDetected() throws Exception {
+
+		// "Aa" and "BB" have the same String#hashCode()
+		XmlRegionCache cache = new XmlRegionCache( new XmlRegionAnalyzer());
+		Assert.assertEquals( "Aa".hashCode(), "BB".hashCode());
+		cache.analyzeXml( "<Aa/>" );
+		cache.analyzeXml( "<BB/>" );
+		cache.analyzeXml( "<Aa>" );
+		Assert.assertEquals( 0, cache.getHitCount());
+		Assert.assertEquals( 3, cache.size());
+		Assert.assertEquals( "[MARKUP [0, 4[]", cache.analyzeXml( "<Aa>" ).toString());
+		Assert.assertEquals( 1, cache.getHitCount());
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testLruEviction() throws Exception {
+
+		StringBuilder sb = new StringBuilder( "<root>" );
+		for( int i=0; i<100; i++ )
+			sb.append( "<a>text</a>" );
+
+		String[] documents = new String[ 5 ];
+		for( int i=0; i<documents.length; i++ )
+			documents[ i ] = sb.toString() + "<doc" + i + "/></root>";
+
+		// Room for about 3 documents
+		XmlRegionCache probe = new XmlRegionCache( new XmlRegionAnalyzer());
+		probe.analyzeXml( documents[ 0 ]);
+		XmlRegionCache cache = new XmlRegionCache( new XmlRegionAnalyzer(), 3 * probe.getMemoryUsage() + 10 );
+
+		cache.analyzeXml( documents[ 0 ]);
+		cache.analyzeXml( documents[ 1 ]);
+		cache.analyzeXml( documents[ 2 ]);
+		cache.analyzeXml( documents[ 0 ]);
+		Assert.assertEquals( 1, cache.getHitCount());
+		Assert.assertEquals( 0, cache.getEvictionCount());
+
+		// The least recently used is document 1
+		cache.analyzeXml( documents[ 3 ]);
+		Assert.assertEquals( 1, cache.getEvictionCount());
+		Assert.assertEquals( 3, cache.size());
+		Assert.assertTrue( cache.getMemoryUsage() <= cache.getBudget());
+
+		cache.analyzeXml( documents[ 0 ]);
+		cache.analyzeXml( documents[ 2 ]);
+		cache.analyzeXml( documents[ 3 ]);
+		Assert.assertEquals( 4, cache.getHitCount());
+		cache.analyzeXml( documents[ 1 ]);
+		Assert.assertEquals( 5, cache.getMissCount());
+
+		// Documents larger than the budget are not cached
+		XmlRegionCache small = new XmlRegionCache( new XmlRegionAnalyzer(), 100 );
+		Assert.assertEquals( 303, small.analyzeXml( documents[ 4 ]).size());
+		Assert.assertEquals( 0, small.size());
+		Assert.assertEquals( 0, small.getEvictionCount());
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testSharedCache() throws Exception {
+
+		final String[] documents = {
+			XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" ),
+			"<test a=\"b\"><!-- comment --> value </test>",
+			"<test><![CDATA[<sender>John Smith</sender>]]></test>"
+		};
+
+		final String[] expected = new String[ documents.length ];
+		for( int i=0; i<documents.length; i++ )
+			expected[ i ] = new XmlRegionAnalyzer().analyzeXml( documents[ i ]).toString();
+
+		final XmlRegionCache cache = new XmlRegionCache( new XmlRegionAnalyzer());
+		ExecutorService executor = Executors.newFixedThreadPool( 8 );
+		List<Future<Integer>> futures = new ArrayList<> ();
+		try {
+			for( int t=0; t<8; t++ ) {
+				final int threadIndex = t;
+				futures.add( executor.submit( new Callable<Integer>() {
+					@Override
+					public Integer call() throws Exception {
+
+						int errors = 0;
+						for( int i=0; i<50; i++ ) {
+							int index = (threadIndex + i) % documents.length;
+							if( ! expected[ index ].equals( cache.analyzeXml( documents[ index ]).toString()))
+								errors ++;
+						}
+
+						return errors;
+					}
+				}));
+			}
+
+			for( Future<Integer> future : futures )
+				Assert.assertEquals( 0, future.get( 2, TimeUnit.MINUTES ).intValue());
+
+		} finally {
+			executor.shutdownNow();
+		}
+
+		Assert.assertEquals( 400, cache.getHitCount() + cache.getMissCount());
+		Assert.assertEquals( 3, cache.size());
+	}
+}
@@ -0,0 +1,184 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.vzurczak.xml.region.analyzer.XmlRegionAnalyzer.LexerEngine;
+
+/**
+ * Unit tests for {@link XmlRegionCheckpoints}.
+ * @author Vincent Zurczak
+ */
+public class XmlRegionCheckpointsTest {
+
+	private static final String[] FRAGMENTS = {
+		"<", ">", "/>", "</", "<?", "?>", "<!--", "-->", "<![CDATA[", "]]>",
+		"=", "\"", "\\\"", " ", "\n\t", "a", "test", "value", "?", "!", "-", "]"
+	};
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testRecordAndRestart() throws Exception {
+
+		String xml = XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" );
+		List<XmlRegion> all = new XmlRegionAnalyzer().analyzeXml( xml );
+
+		XmlRegionCheckpoints checkpoints = new XmlRegionCheckpoints( 4096 );
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+		new XmlRegionAnalyzer().analyzeXml( xml, buffer, checkpoints );
+
+		// Recording checkpoints does not change the regions
+		Assert.assertEquals( toString( all, 0 ), toString( buffer.asList(), 0 ));
+		Assert.assertTrue( checkpoints.size() > xml.length() / 8192 );
+		Assert.assertTrue( checkpoints.size() <= xml.length() / 4096 );
+
+		for( int i=0; i<checkpoints.size(); i++ ) {
+			XmlRegionCheckpoint checkpoint = checkpoints.get( i );
+			if( i > 0 )
+				Assert.assertTrue( checkpoint.getOffset() >= checkpoints.get( i - 1 ).getOffset() + 4096 );
+
+			buffer.clear();
+			new XmlRegionAnalyzer().analyzeXmlFrom( xml, checkpoint, buffer );
+			Assert.assertEquals( toString( all, checkpoint.getOffset()), toString( buffer.asList(), 0 ));
+		}
+
+		// The state machine records the same checkpoints
+		XmlRegionCheckpoints other = new XmlRegionCheckpoints( 4096 );
+		new XmlRegionAnalyzer( LexerEngine.STATE_MACHINE ).analyzeXml( xml, new XmlRegionBuffer(), other );
+		Assert.assertEquals( checkpoints.size(), other.size());
+		for( int i=0; i<checkpoints.size(); i++ )
+			Assert.assertEquals( checkpoints.get( i ), other.get( i ));
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testRangesOfInvalidDocuments() throws Exception {
+
+		// Checkpoints are exact, even for invalid documents
+		Random random = new Random( 5 );
+		for( int i=0; i<200; i++ ) {
+			StringBuilder sb = new StringBuilder();
+			for( int j=0; j<300; j++ )
+				sb.append( FRAGMENTS[ random.nextInt( FRAGMENTS.length )]);
+
+			String xml = sb.toString();
+			List<XmlRegion> all = new XmlRegionAnalyzer().analyzeXml( xml );
+			XmlRegionCheckpoints checkpoints = new XmlRegionCheckpoints( 1 + random.nextInt( 50 ));
+			new XmlRegionAnalyzer().analyzeXml( xml, new XmlRegionBuffer(), checkpoints );
+
+			for( int j=0; j<20; j++ ) {
+				int from = random.nextInt( xml.length() + 1 );
+				int to = from + random.nextInt( xml.length() - from + 1 );
+
+				StringBuilder expected = new StringBuilder();
+				for( XmlRegion xr : all ) {
+					if( xr.getEnd() > from && xr.getStart() < to && from < to )
+						expected.append( xr ).append( "\n" );
+				}
+
+				XmlRegionBuffer buffer = new XmlRegionBuffer();
+				new XmlRegionAnalyzer().analyzeXmlRange( xml, from, to, buffer, checkpoints );
+				Assert.assertEquals( xml, expected.toString(), toString( buffer.asList(), 0 ));
+			}
+		}
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testFindBefore() throws Exception {
+
+		XmlRegionCheckpoints checkpoints = new XmlRegionCheckpoints( 10 );
+		Assert.assertSame( XmlRegionCheckpoint.START, checkpoints.findBefore( 100 ));
+
+		checkpoints.add( 12, XmlLexicalContext.CONTENT );
+		checkpoints.add( 25, XmlLexicalContext.IN_TAG );
+		checkpoints.add( 40, XmlLexicalContext.OTHER );
+
+		Assert.assertSame( XmlRegionCheckpoint.START, checkpoints.findBefore( 11 ));
+		Assert.assertEquals( 12, checkpoints.findBefore( 12 ).getOffset());
+		Assert.assertEquals( 12, checkpoints.findBefore( 24 ).getOffset());
+		Assert.assertEquals( 25, checkpoints.findBefore( 25 ).getOffset());
+		Assert.assertEquals( XmlLexicalContext.IN_TAG, checkpoints.findBefore( 39 ).getContext());
+		Assert.assertEquals( 40, checkpoints.findBefore( Long.MAX_VALUE ).getOffset());
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testSerialization() throws Exception {
+
+		String xml = XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" );
+		XmlRegionCheckpoints checkpoints = new XmlRegionCheckpoints( 1024 );
+		new XmlRegionAnalyzer().analyzeXml( xml, new XmlRegionBuffer(), checkpoints );
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream( os );
+		out.writeObject( checkpoints );
+		out.close();
+
+		// About 9 bytes per checkpoint
+		Assert.assertTrue( "" + os.size(), os.size() < 200 + 10 * checkpoints.size());
+
+		ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( os.toByteArray()));
+		XmlRegionCheckpoints copy = (XmlRegionCheckpoints) in.readObject();
+		in.close();
+
+		Assert.assertEquals( 1024, copy.getInterval());
+		Assert.assertEquals( checkpoints.size(), copy.size());
+		for( int i=0; i<checkpoints.size(); i++ )
+			Assert.assertEquals( checkpoints.get( i ), copy.get( i ));
+	}
+
+
+	/**
+	 * @param regions a list of regions
+	 * @param from the position of the first region to consider
+	 * @return a string representation of the regions that start at or after <code>from</code>
+	 */
+	private static String toString( List<XmlRegion> regions, long from ) {
+
+		StringBuilder sb = new StringBuilder();
+		for( XmlRegion xr : regions ) {
+			if( xr.getStart() >= from )
+				sb.append( xr ).append( "\n" );
+		}
+
+		return sb.toString();
+	}
+}
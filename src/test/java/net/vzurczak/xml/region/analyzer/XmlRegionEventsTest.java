@@ -0,0 +1,131 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link XmlRegionEvents} and its Flight Recorder implementation (Java 17 and later).
+ * <p>
+ * Sources of unit tests are compiled for Java 7: the Flight Recorder API is used through reflection.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+public class XmlRegionEventsTest {
+
+	/**
+	 * Sets the size of oversized regions, before the events are loaded.
+	 */
+	@BeforeClass
+	public static void setOversizedRegionSize() {
+		System.setProperty( "net.vzurczak.xml.region.analyzer.oversizedRegionSize", "100" );
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testFlightRecorderEventsAreUsedWhenAvailable() throws Exception {
+
+		boolean available;
+		try {
+			Class.forName( "jdk.jfr.Event" );
+			Class.forName( "net.vzurczak.xml.region.analyzer.JfrXmlRegionEvents" );
+			available = true;
+
+		} catch( ClassNotFoundException e ) {
+			available = false;
+		}
+
+		String name = XmlRegionEvents.DEFAULT.getClass().getSimpleName();
+		Assert.assertEquals( name, available ? "JfrXmlRegionEvents" : "XmlRegionEvents" );
+
+		// Without recording, analyses are not measured
+		Assert.assertNull( XmlRegionMeter.create( new XmlRegionBuffer(), null ));
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testRecording() throws Exception {
+
+		Assume.assumeTrue( XmlRegionEvents.DEFAULT.getClass() != XmlRegionEvents.class );
+
+		Class<?> recordingClass = Class.forName( "jdk.jfr.Recording" );
+		Object recording = recordingClass.newInstance();
+		recordingClass.getMethod( "enable", String.class ).invoke( recording, "net.vzurczak.xml.region.Analysis" );
+		recordingClass.getMethod( "enable", String.class ).invoke( recording, "net.vzurczak.xml.region.OversizedRegion" );
+
+		File file = File.createTempFile( "xml-region-analyzer-", ".jfr" );
+		List<Object> events;
+		try {
+			recordingClass.getMethod( "start" ).invoke( recording );
+			XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+			analyzer.analyzeXml( "<test>value</test>" );
+			analyzer.analyzeXml( "<root><!--" + new String( new char[ 200 ]).replace( '\0', 'c' ) + "--></root><!test" );
+			recordingClass.getMethod( "stop" ).invoke( recording );
+			recordingClass.getMethod( "dump", Path.class ).invoke( recording, file.toPath());
+
+			Method readAllEvents = Class.forName( "jdk.jfr.consumer.RecordingFile" ).getMethod( "readAllEvents", Path.class );
+			events = new ArrayList<Object>((List<?>) readAllEvents.invoke( null, file.toPath()));
+
+		} finally {
+			recordingClass.getMethod( "close" ).invoke( recording );
+			file.delete();
+		}
+
+		Class<?> eventClass = Class.forName( "jdk.jfr.consumer.RecordedEvent" );
+		Method getEventType = eventClass.getMethod( "getEventType" );
+		Method getValue = eventClass.getMethod( "getValue", String.class );
+		Method getName = Class.forName( "jdk.jfr.EventType" ).getMethod( "getName" );
+
+		List<String> analyses = new ArrayList<> ();
+		List<String> oversizedRegions = new ArrayList<> ();
+		for( Object event : events ) {
+			String name = (String) getName.invoke( getEventType.invoke( event ));
+			if( "net.vzurczak.xml.region.Analysis".equals( name )) {
+				analyses.add( getValue.invoke( event, "documentLength" )
+						+ " " + getValue.invoke( event, "regionCount" )
+						+ " " + getValue.invoke( event, "endsWithUnexpectedRegion" ));
+
+			} else if( "net.vzurczak.xml.region.OversizedRegion".equals( name )) {
+				oversizedRegions.add( getValue.invoke( event, "regionType" )
+						+ " " + getValue.invoke( event, "start" )
+						+ " " + getValue.invoke( event, "size" ));
+			}
+		}
+
+		Assert.assertEquals( "[18 3 false, 226 4 true]", analyses.toString());
+		Assert.assertEquals( "[COMMENT 6 207]", oversizedRegions.toString());
+	}
+}
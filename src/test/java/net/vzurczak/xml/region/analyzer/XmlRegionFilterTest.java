@@ -0,0 +1,83 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * Unit tests for {@link XmlRegionFilter}.
+ * @author Vincent Zurczak
+ */
+public class XmlRegionFilterTest {
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testFilteredAnalysis() throws Exception {
+
+		String xml = XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" );
+		List<XmlRegion> all = new XmlRegionAnalyzer().analyzeXml( xml );
+
+		List<EnumSet<XmlRegionType>> profiles = new ArrayList<EnumSet<XmlRegionType>> ();
+		profiles.add( EnumSet.of( XmlRegionType.MARKUP, XmlRegionType.ATTRIBUTE ));
+		profiles.add( EnumSet.of( XmlRegionType.MARKUP_VALUE, XmlRegionType.CDATA ));
+		profiles.add( EnumSet.of( XmlRegionType.COMMENT ));
+		profiles.add( EnumSet.complementOf( EnumSet.of( XmlRegionType.WHITESPACE )));
+		profiles.add( EnumSet.allOf( XmlRegionType.class ));
+		profiles.add( EnumSet.noneOf( XmlRegionType.class ));
+
+		for( EnumSet<XmlRegionType> types : profiles ) {
+			List<XmlRegion> expected = new ArrayList<XmlRegion> ();
+			for( XmlRegion xr : all ) {
+				if( types.contains( xr.getXmlRegionType()))
+					expected.add( xr );
+			}
+
+			Assert.assertEquals( types.toString(), expected, new XmlRegionAnalyzer().analyzeXml( xml, types ));
+		}
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testFilteredHandler() throws Exception {
+
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+		XmlRegionHandler handler = XmlRegionFilter.create( buffer, EnumSet.allOf( XmlRegionType.class ));
+		Assert.assertSame( buffer, handler );
+
+		handler = XmlRegionFilter.create( buffer, EnumSet.of( XmlRegionType.COMMENT ));
+		new XmlRegionAnalyzer().analyzeXml( "<a><!-- c -->  <b/><!--d--></a>", handler );
+
+		Assert.assertEquals( 2, buffer.size());
+		Assert.assertEquals( new XmlRegion( XmlRegionType.COMMENT, 3, 13 ), buffer.asList().get( 0 ));
+		Assert.assertEquals( new XmlRegion( XmlRegionType.COMMENT, 19, 27 ), buffer.asList().get( 1 ));
+	}
+}
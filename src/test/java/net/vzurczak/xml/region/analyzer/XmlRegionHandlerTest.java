@@ -0,0 +1,89 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * Unit tests for {@link XmlRegionAnalyzer#analyzeXml(CharSequence, XmlRegionHandler)}.
+ * @author Vincent Zurczak
+ */
+public class XmlRegionHandlerTest {
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testSameRegionsAsTheList() throws Exception {
+
+		String xml = XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" );
+		XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+		final List<String> notified = new ArrayList<> ();
+		analyzer.analyzeXml( new StringBuilder( xml ), new XmlRegionHandler() {
+			@Override
+			public void onRegion( XmlRegionType xmlRegionType, long start, long end ) {
+				notified.add( new XmlRegion( xmlRegionType, (int) start, (int) end ).toString());
+			}
+		});
+
+		List<XmlRegion> regions = analyzer.analyzeXml( xml );
+		Assert.assertEquals( regions.size(), notified.size());
+		for( int i=0; i<regions.size(); i++ )
+			Assert.assertEquals( regions.get( i ).toString(), notified.get( i ));
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testReusedHandler() throws Exception {
+
+		String xml = XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" );
+		XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer();
+		int expected = analyzer.analyzeXml( xml ).size();
+
+		// The allocations are measured by XmlRegionAnalyzerBenchmark#analyzeWithHandler (GC profiler)
+		CountingHandler handler = new CountingHandler();
+		for( int i=0; i<10; i++ )
+			analyzer.analyzeXml( xml, handler );
+
+		Assert.assertEquals( 10 * expected, handler.count );
+	}
+
+
+	/**
+	 * A handler that counts regions.
+	 * @author Vincent Zurczak
+	 */
+	private static class CountingHandler implements XmlRegionHandler {
+		int count;
+
+		@Override
+		public void onRegion( XmlRegionType xmlRegionType, long start, long end ) {
+			this.count ++;
+		}
+	}
+}
@@ -0,0 +1,209 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * Unit tests for {@link XmlRegionIndex}.
+ * @author Vincent Zurczak
+ */
+public class XmlRegionIndexTest {
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testSameResultsThanALinearSearch() throws Exception {
+
+		String xml = XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" );
+		List<XmlRegion> regions = new ArrayList<>( new XmlRegionAnalyzer().analyzeXml( xml ));
+		XmlRegionIndex index = new XmlRegionIndex( regions );
+		Assert.assertEquals( regions.size(), index.size());
+
+		int cursor = 0;
+		for( int offset = -1; offset <= xml.length() + 1; offset ++ ) {
+			while( cursor < regions.size() && regions.get( cursor ).getEnd() <= offset )
+				cursor ++;
+
+			XmlRegion expected = null;
+			if( cursor < regions.size() && regions.get( cursor ).getStart() <= offset )
+				expected = regions.get( cursor );
+
+			// The regions are not copied
+			Assert.assertSame( expected, index.regionAt( offset ));
+		}
+
+		Random random = new Random( 3 );
+		for( int i=0; i<500; i++ ) {
+			int from = random.nextInt( xml.length() + 1 );
+			int to = from + random.nextInt( 300 );
+
+			List<XmlRegion> expected = new ArrayList<> ();
+			for( XmlRegion xr : regions ) {
+				if( xr.getEnd() > from && xr.getStart() < to )
+					expected.add( xr );
+			}
+
+			Assert.assertEquals( expected, index.regionsIn( from, to ));
+		}
+
+		Assert.assertTrue( index.regionsIn( 10, 10 ).isEmpty());
+		Assert.assertTrue( index.regionsIn( 10, 5 ).isEmpty());
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testGaps() throws Exception {
+
+		XmlRegion a = new XmlRegion( XmlRegionType.MARKUP, 2, 5 );
+		XmlRegion b = new XmlRegion( XmlRegionType.MARKUP_VALUE, 5, 8 );
+		XmlRegion c = new XmlRegion( XmlRegionType.MARKUP, 12, 15 );
+		XmlRegionIndex index = new XmlRegionIndex( Arrays.asList( a, b, c ));
+
+		Assert.assertEquals( -1, index.indexAt( 1 ));
+		Assert.assertEquals( 0, index.indexAt( 2 ));
+		Assert.assertEquals( 1, index.indexAt( 5 ));
+		Assert.assertEquals( -1, index.indexAt( 8 ));
+		Assert.assertEquals( -1, index.indexAt( 11 ));
+		Assert.assertEquals( 2, index.indexAt( 14 ));
+		Assert.assertEquals( -1, index.indexAt( 15 ));
+
+		Assert.assertEquals( Arrays.asList( b ), index.regionsIn( 6, 12 ));
+		Assert.assertEquals( Arrays.asList( b, c ), index.regionsIn( 6, 13 ));
+		Assert.assertTrue( index.regionsIn( 8, 12 ).isEmpty());
+		Assert.assertTrue( new XmlRegionIndex( new ArrayList<XmlRegion> ()).regionsIn( 0, 10 ).isEmpty());
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test( expected = IllegalArgumentException.class )
+	public void testOverlappingRegions() throws Exception {
+		new XmlRegionIndex( Arrays.asList(
+				new XmlRegion( XmlRegionType.MARKUP, 0, 5 ),
+				new XmlRegion( XmlRegionType.MARKUP, 3, 8 )));
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testBuffer() throws Exception {
+
+		String xml = XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" );
+		List<XmlRegion> regions = new ArrayList<>( new XmlRegionAnalyzer().analyzeXml( xml ));
+		XmlRegionIndex expected = new XmlRegionIndex( regions );
+
+		// The buffer has more capacity than regions
+		XmlRegionBuffer buffer = new XmlRegionBuffer( 4 * regions.size());
+		new XmlRegionAnalyzer().analyzeXml( xml, buffer );
+		XmlRegionIndex index = new XmlRegionIndex( buffer );
+		Assert.assertEquals( expected.size(), index.size());
+
+		for( int offset = -1; offset <= xml.length() + 1; offset ++ ) {
+			Assert.assertEquals( expected.indexAt( offset ), index.indexAt( offset ));
+			Assert.assertEquals( expected.regionAt( offset ), index.regionAt( offset ));
+		}
+
+		Random random = new Random( 5 );
+		for( int i=0; i<500; i++ ) {
+			int from = random.nextInt( xml.length() + 1 );
+			int to = from + random.nextInt( 300 );
+			Assert.assertEquals( expected.regionsIn( from, to ), index.regionsIn( from, to ));
+		}
+
+		Assert.assertEquals( regions.get( 3 ), index.get( 3 ));
+		Assert.assertEquals( -1, new XmlRegionIndex( new XmlRegionBuffer()).indexAt( 0 ));
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test( expected = IllegalArgumentException.class )
+	public void testOverlappingRegionsInABuffer() throws Exception {
+
+		XmlRegionBuffer buffer = new XmlRegionBuffer();
+		buffer.add( XmlRegionType.MARKUP, 0, 5 );
+		buffer.add( XmlRegionType.MARKUP, 3, 8 );
+		new XmlRegionIndex( buffer );
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testConcurrentReaders() throws Exception {
+
+		final String xml = XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" );
+		final List<XmlRegion> regions = new XmlRegionAnalyzer().analyzeXml( xml );
+		final XmlRegionIndex index = new XmlRegionIndex( regions );
+
+		ExecutorService executor = Executors.newFixedThreadPool( 8 );
+		List<Future<Integer>> futures = new ArrayList<> ();
+		try {
+			for( int t=0; t<8; t++ ) {
+				final int seed = t;
+				futures.add( executor.submit( new Callable<Integer>() {
+					@Override
+					public Integer call() throws Exception {
+
+						int errors = 0;
+						Random random = new Random( seed );
+						for( int i=0; i<20000; i++ ) {
+							int offset = random.nextInt( xml.length());
+							XmlRegion xr = index.regionAt( offset );
+							if( xr == null || xr.getStart() > offset || xr.getEnd() <= offset )
+								errors ++;
+						}
+
+						return errors;
+					}
+				}));
+			}
+
+			for( Future<Integer> future : futures )
+				Assert.assertEquals( 0, future.get( 2, TimeUnit.MINUTES ).intValue());
+
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,239 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+
+/**
+ * Unit tests for {@link XmlRegionIterator} and for the spliterator of regions (Java 17 and later).
+ * <p>
+ * Sources of unit tests are compiled for Java 7: the spliterator is used through reflection.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+public class XmlRegionIteratorTest {
+
+	private static final String[] FRAGMENTS = {
+		"<", ">", "/>", "</", "<?", "?>", "<!--", "-->", "<![CDATA[", "]]>",
+		"=", "\"", "\\\"", " ", "\n\t", "a", "test", "value", "?", "!", "-", "]"
+	};
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testSameRegions() throws Exception {
+
+		List<String> documents = new ArrayList<String> ();
+		documents.add( XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" ));
+		documents.add( "" );
+		documents.add( "   " );
+		documents.add( "<a>  </a>  " );
+
+		Random random = new Random( 7 );
+		for( int i=0; i<200; i++ ) {
+			StringBuilder sb = new StringBuilder();
+			for( int j=0; j<100; j++ )
+				sb.append( FRAGMENTS[ random.nextInt( FRAGMENTS.length )]);
+
+			documents.add( sb.toString());
+		}
+
+		for( String xml : documents ) {
+			List<XmlRegion> regions = new ArrayList<XmlRegion> ();
+			Iterator<XmlRegion> it = new XmlRegionAnalyzer().iterateXml( xml ).iterator();
+			while( it.hasNext()) {
+				Assert.assertTrue( it.hasNext());
+				regions.add( it.next());
+			}
+
+			Assert.assertEquals( xml, new XmlRegionAnalyzer().analyzeXml( xml ), regions );
+			try {
+				it.next();
+				Assert.fail( "A NoSuchElementException was expected." );
+
+			} catch( NoSuchElementException e ) {
+				// nothing
+			}
+		}
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testLazyAnalysis() throws Exception {
+
+		String xml = XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" );
+		CountingSequence sequence = new CountingSequence( xml );
+		Iterator<XmlRegion> it = new XmlRegionAnalyzer().iterateXml( sequence ).iterator();
+		Assert.assertEquals( 0, sequence.maxIndex );
+
+		// Find the name of the root element
+		XmlRegion root = null;
+		while( root == null ) {
+			XmlRegion xr = it.next();
+			if( xr.getXmlRegionType() == XmlRegionType.MARKUP && xml.charAt( xr.getStart() + 1 ) != '?' )
+				root = xr;
+		}
+
+		Assert.assertTrue( xml.substring( root.getStart()).startsWith( "<" ));
+		Assert.assertTrue( "" + sequence.maxIndex, sequence.maxIndex < 200 );
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test( expected = UnsupportedOperationException.class )
+	public void testRemove() throws Exception {
+
+		Iterator<XmlRegion> it = new XmlRegionAnalyzer().iterateXml( "<a />" ).iterator();
+		it.next();
+		it.remove();
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testIterableAnalyzesAgain() throws Exception {
+
+		String xml = XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" );
+		Iterable<XmlRegion> iterable = new XmlRegionAnalyzer().iterateXml( xml );
+		Iterator<XmlRegion> it = iterable.iterator();
+		it.next();
+		it.next();
+
+		List<XmlRegion> regions = new ArrayList<XmlRegion> ();
+		for( XmlRegion xr : iterable )
+			regions.add( xr );
+
+		Assert.assertEquals( new XmlRegionAnalyzer().analyzeXml( xml ), regions );
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	@SuppressWarnings( "unchecked" )
+	public void testSpliterator() throws Exception {
+
+		Iterable<XmlRegion> iterable = new XmlRegionAnalyzer().iterateXml( "<a />" );
+		Class<?> spliteratorClass = null;
+		try {
+			spliteratorClass = Class.forName( "net.vzurczak.xml.region.analyzer.XmlRegionSpliterator" );
+
+		} catch( ClassNotFoundException e ) {
+			// nothing
+		}
+
+		Assume.assumeNotNull( spliteratorClass );
+
+		// Characteristics
+		Class<?> spliteratorInterface = Class.forName( "java.util.Spliterator" );
+		int expected = spliteratorInterface.getField( "ORDERED" ).getInt( null )
+				| spliteratorInterface.getField( "NONNULL" ).getInt( null )
+				| spliteratorInterface.getField( "IMMUTABLE" ).getInt( null );
+
+		Method spliteratorMethod = Iterable.class.getMethod( "spliterator" );
+		Object spliterator = spliteratorMethod.invoke( iterable );
+		Assert.assertEquals( spliteratorClass, spliterator.getClass());
+		Assert.assertEquals( expected, spliteratorInterface.getMethod( "characteristics" ).invoke( spliterator ));
+		Assert.assertNull( spliteratorInterface.getMethod( "trySplit" ).invoke( spliterator ));
+
+		// Whole stream
+		String xml = XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" );
+		Class<?> streamInterface = Class.forName( "java.util.stream.BaseStream" );
+		Method streamMethod = Class.forName( "java.util.stream.StreamSupport" ).getMethod( "stream", spliteratorInterface, boolean.class );
+		Object stream = streamMethod.invoke( null, spliteratorMethod.invoke( new XmlRegionAnalyzer().iterateXml( xml )), false );
+		Iterator<XmlRegion> it = (Iterator<XmlRegion>) streamInterface.getMethod( "iterator" ).invoke( stream );
+
+		List<XmlRegion> regions = new ArrayList<XmlRegion> ();
+		while( it.hasNext())
+			regions.add( it.next());
+
+		Assert.assertEquals( new XmlRegionAnalyzer().analyzeXml( xml ), regions );
+
+		// Short-circuiting operations do not analyze the whole document
+		CountingSequence sequence = new CountingSequence( xml );
+		stream = streamMethod.invoke( null, spliteratorMethod.invoke( new XmlRegionAnalyzer().iterateXml( sequence )), false );
+		stream = Class.forName( "java.util.stream.Stream" ).getMethod( "limit", long.class ).invoke( stream, 5L );
+		it = (Iterator<XmlRegion>) streamInterface.getMethod( "iterator" ).invoke( stream );
+
+		regions.clear();
+		while( it.hasNext())
+			regions.add( it.next());
+
+		Assert.assertEquals( new XmlRegionAnalyzer().analyzeXml( xml ).subList( 0, 5 ), regions );
+		Assert.assertTrue( "" + sequence.maxIndex, sequence.maxIndex < 200 );
+	}
+
+
+	/**
+	 * A character sequence that remembers the last character that was read.
+	 * @author Vincent Zurczak
+	 */
+	private static class CountingSequence implements CharSequence {
+		private final String s;
+		int maxIndex;
+
+		CountingSequence( String s ) {
+			this.s = s;
+		}
+
+		@Override
+		public char charAt( int index ) {
+			this.maxIndex = Math.max( this.maxIndex, index );
+			return this.s.charAt( index );
+		}
+
+		@Override
+		public int length() {
+			return this.s.length();
+		}
+
+		@Override
+		public CharSequence subSequence( int start, int end ) {
+			return this.s.subSequence( start, end );
+		}
+
+		@Override
+		public String toString() {
+			return this.s;
+		}
+	}
+}
@@ -0,0 +1,139 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.vzurczak.xml.region.analyzer.XmlRegion.XmlRegionType;
+import net.vzurczak.xml.region.analyzer.XmlRegionAnalyzer.LexerEngine;
+
+/**
+ * Unit tests for {@link XmlRegionMetrics} and {@link XmlRegionStatistics}.
+ * @author Vincent Zurczak
+ */
+public class XmlRegionMetricsTest {
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testMetricsOfEveryKindOfInput() throws Exception {
+
+		String xml = XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" ) + "<! invalid";
+		List<XmlRegion> regions = new XmlRegionAnalyzer().analyzeXml( xml );
+
+		final List<XmlRegionMetrics> measures = new ArrayList<> ();
+		XmlRegionMetricsListener listener = new XmlRegionMetricsListener() {
+			@Override
+			public void onAnalysis( XmlRegionMetrics metrics ) {
+				measures.add( metrics );
+			}
+		};
+
+		XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer( LexerEngine.SCANNER, listener );
+		Assert.assertEquals( regions, analyzer.analyzeXml( xml ));
+		new XmlRegionAnalyzer( LexerEngine.STATE_MACHINE, listener ).analyzeXml( xml );
+		analyzer.analyzeXml( new StringReader( xml ), new XmlRegionBuffer());
+		Assert.assertEquals( 3, measures.size());
+
+		for( XmlRegionMetrics metrics : measures ) {
+			Assert.assertEquals( xml.length(), metrics.getLength());
+			Assert.assertEquals( regions.size(), metrics.getRegionCount());
+			Assert.assertTrue( metrics.getDurationNanos() > 0 );
+
+			for( XmlRegionType type : XmlRegionType.values()) {
+				long count = 0, largest = 0;
+				for( XmlRegion xr : regions ) {
+					if( xr.getXmlRegionType() == type ) {
+						count ++;
+						largest = Math.max( largest, xr.getEnd() - xr.getStart());
+					}
+				}
+
+				Assert.assertEquals( count, metrics.getRegionCount( type ));
+				Assert.assertEquals( largest, metrics.getLargestRegionSize( type ));
+			}
+
+			Assert.assertEquals( 1, metrics.getUnexpectedRegionCount());
+		}
+
+		// UTF-8 documents are measured in bytes
+		measures.clear();
+		byte[] utf8 = ( xml + "<a>é</a>" ).getBytes( Charset.forName( "UTF-8" ));
+		analyzer.analyzeXml( utf8, new XmlRegionBuffer());
+		Assert.assertEquals( utf8.length, measures.get( 0 ).getLength());
+
+		// Without a listener, nothing happens
+		Assert.assertEquals( regions, new XmlRegionAnalyzer( LexerEngine.SCANNER, null ).analyzeXml( xml ));
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testStatisticsThroughJmx() throws Exception {
+
+		XmlRegionStatistics statistics = new XmlRegionStatistics();
+		ObjectName name = statistics.register( "test" );
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			XmlRegionAnalyzer analyzer = new XmlRegionAnalyzer( LexerEngine.SCANNER, statistics );
+			analyzer.analyzeXml( "<test a=\"b\">value</test>" );
+			analyzer.analyzeXml( "<test>value</test>" );
+			analyzer.analyzeXml( "<!test" );
+
+			Assert.assertEquals( 3L, server.getAttribute( name, "AnalysisCount" ));
+			Assert.assertEquals( 48L, server.getAttribute( name, "TotalLength" ));
+			Assert.assertEquals( 1L, server.getAttribute( name, "AnalysisWithUnexpectedRegionsCount" ));
+
+			TabularData counts = (TabularData) server.getAttribute( name, "RegionCounts" );
+			CompositeData row = counts.get( new Object[] { "MARKUP" });
+			Assert.assertEquals( 5L, row.get( "value" ));
+
+			long total = 0;
+			for( long count : (long[]) server.getAttribute( name, "LatencyHistogram" ))
+				total += count;
+
+			Assert.assertEquals( 3, total );
+			Assert.assertEquals( statistics.getLatencyHistogram().length - 1, statistics.getLatencyBucketBoundsMicros().length );
+			Assert.assertEquals( Long.valueOf( 6 ), statistics.getLargestRegionSizes().get( "UNEXPECTED" ));
+
+			server.invoke( name, "reset", null, null );
+			Assert.assertEquals( 0L, server.getAttribute( name, "AnalysisCount" ));
+			Assert.assertEquals( Long.valueOf( 0 ), statistics.getRegionCounts().get( "MARKUP" ));
+
+		} finally {
+			server.unregisterMBean( name );
+		}
+	}
+}
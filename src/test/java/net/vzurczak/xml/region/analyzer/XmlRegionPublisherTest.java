@@ -0,0 +1,262 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the publisher of regions (Java 17 and later).
+ * <p>
+ * Sources of unit tests are compiled for Java 7: the publisher is used through reflection.
+ * </p>
+ *
+ * @author Vincent Zurczak
+ */
+public class XmlRegionPublisherTest {
+
+	private Class<?> publisherClass, subscriberClass, subscriptionClass;
+
+
+	/**
+	 * Loads the classes, if they are available.
+	 */
+	@Before
+	public void loadClasses() {
+
+		try {
+			this.publisherClass = Class.forName( "net.vzurczak.xml.region.analyzer.XmlRegionPublisher" );
+			this.subscriberClass = Class.forName( "java.util.concurrent.Flow$Subscriber" );
+			this.subscriptionClass = Class.forName( "java.util.concurrent.Flow$Subscription" );
+
+		} catch( ClassNotFoundException e ) {
+			// nothing
+		}
+
+		Assume.assumeNotNull( this.publisherClass, this.subscriberClass );
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testBackpressure() throws Exception {
+
+		String xml = XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" );
+		List<XmlRegion> expected = new XmlRegionAnalyzer().analyzeXml( xml );
+		final int[] read = { 0 };
+		Reader reader = new StringReader( xml ) {
+			@Override
+			public int read( char[] cbuf, int off, int len ) throws IOException {
+				int result = super.read( cbuf, off, len );
+				read[ 0 ] += Math.max( 0, result );
+				return result;
+			}
+		};
+
+		Object publisher = this.publisherClass
+				.getConstructor( Reader.class, int.class, Executor.class )
+				.newInstance( reader, 256, new Executor() {
+					@Override
+					public void execute( Runnable command ) {
+						command.run();
+					}
+				});
+
+		Recorder recorder = subscribe( publisher );
+		Assert.assertEquals( 0, read[ 0 ]);
+		Assert.assertEquals( 0, recorder.regions.size());
+
+		// Only what is necessary is analyzed
+		request( recorder, 1 );
+		Assert.assertEquals( 1, recorder.regions.size());
+		Assert.assertTrue( read[ 0 ] <= 256 );
+
+		request( recorder, 50 );
+		Assert.assertEquals( 51, recorder.regions.size());
+		Assert.assertTrue( read[ 0 ] < xml.length() / 2 );
+		Assert.assertFalse( recorder.complete );
+
+		request( recorder, Long.MAX_VALUE );
+		request( recorder, Long.MAX_VALUE );
+		Assert.assertEquals( expected, recorder.regions );
+		Assert.assertTrue( recorder.complete );
+		Assert.assertNull( recorder.error );
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testRequestsFromTheSubscriber() throws Exception {
+
+		String xml = XmlRegionAnalyzerTest.loadResource( "/StackOverflowExample.xml" );
+		Object publisher = this.publisherClass.getConstructor( CharSequence.class ).newInstance( xml );
+
+		// One region at a time, requested from onNext
+		Recorder recorder = new Recorder();
+		recorder.requestOnNext = true;
+		this.publisherClass.getMethod( "subscribe", this.subscriberClass ).invoke( publisher, proxy( recorder ));
+		request( recorder, 1 );
+
+		Assert.assertEquals( new XmlRegionAnalyzer().analyzeXml( xml ), recorder.regions );
+		Assert.assertTrue( recorder.complete );
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testErrors() throws Exception {
+
+		Object publisher = this.publisherClass.getConstructor( CharSequence.class ).newInstance( "<test>value</test>" );
+		Recorder recorder = subscribe( publisher );
+		request( recorder, 0 );
+		Assert.assertTrue( recorder.error instanceof IllegalArgumentException );
+
+		// A single subscriber
+		Recorder other = subscribe( publisher );
+		Assert.assertTrue( other.error instanceof IllegalStateException );
+
+		// Cancellation
+		publisher = this.publisherClass.getConstructor( CharSequence.class ).newInstance( "<test>value</test>" );
+		recorder = subscribe( publisher );
+		request( recorder, 1 );
+		this.subscriptionClass.getMethod( "cancel" ).invoke( recorder.subscription );
+		request( recorder, 10 );
+		Assert.assertEquals( 1, recorder.regions.size());
+		Assert.assertFalse( recorder.complete );
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testRejectedExecution() throws Exception {
+
+		final int[] executions = { 0 };
+		Object publisher = this.publisherClass
+				.getConstructor( Reader.class, int.class, Executor.class )
+				.newInstance( new StringReader( "<test>value</test>" ), 256, new Executor() {
+					@Override
+					public void execute( Runnable command ) {
+						executions[ 0 ] ++;
+						throw new RejectedExecutionException( "The executor was shut down." );
+					}
+				});
+
+		Recorder recorder = subscribe( publisher );
+		request( recorder, 1 );
+		Assert.assertTrue( recorder.error instanceof RejectedExecutionException );
+		Assert.assertEquals( 1, executions[ 0 ]);
+
+		// The subscription is cancelled
+		recorder.error = null;
+		request( recorder, 10 );
+		Assert.assertNull( recorder.error );
+		Assert.assertEquals( 0, recorder.regions.size());
+		Assert.assertFalse( recorder.complete );
+	}
+
+
+	/**
+	 * @param publisher a publisher
+	 * @return a recorder that subscribed to the publisher
+	 * @throws Exception
+	 */
+	private Recorder subscribe( Object publisher ) throws Exception {
+
+		Recorder recorder = new Recorder();
+		this.publisherClass.getMethod( "subscribe", this.subscriberClass ).invoke( publisher, proxy( recorder ));
+		return recorder;
+	}
+
+
+	/**
+	 * @param recorder a recorder
+	 * @return a subscriber that notifies the recorder
+	 */
+	private Object proxy( Recorder recorder ) {
+		return Proxy.newProxyInstance( getClass().getClassLoader(), new Class<?>[] { this.subscriberClass }, recorder );
+	}
+
+
+	/**
+	 * @param recorder a recorder
+	 * @param n the number of regions to request
+	 * @throws Exception
+	 */
+	private void request( Recorder recorder, long n ) throws Exception {
+		this.subscriptionClass.getMethod( "request", long.class ).invoke( recorder.subscription, n );
+	}
+
+
+	/**
+	 * A subscriber that records what it receives.
+	 * @author Vincent Zurczak
+	 */
+	private final class Recorder implements InvocationHandler {
+
+		final List<XmlRegion> regions = new ArrayList<> ();
+		Object subscription;
+		Throwable error;
+		boolean complete, requestOnNext;
+
+
+		@Override
+		public Object invoke( Object proxy, Method method, Object[] args ) throws Throwable {
+
+			String name = method.getName();
+			if( "onSubscribe".equals( name )) {
+				this.subscription = args[ 0 ];
+
+			} else if( "onNext".equals( name )) {
+				this.regions.add((XmlRegion) args[ 0 ]);
+				if( this.requestOnNext )
+					request( this, 1 );
+
+			} else if( "onError".equals( name )) {
+				this.error = (Throwable) args[ 0 ];
+
+			} else if( "onComplete".equals( name )) {
+				this.complete = true;
+			}
+
+			return null;
+		}
+	}
+}
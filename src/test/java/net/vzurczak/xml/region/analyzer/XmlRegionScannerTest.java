@@ -0,0 +1,101 @@
+/****************************************************************************
+ *
+ * Copyright (c) 2012-2018, Vincent Zurczak - All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *****************************************************************************/
+
+package net.vzurczak.xml.region.analyzer;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link XmlRegionScanner} and its vector implementation (when available).
+ * @author Vincent Zurczak
+ */
+public class XmlRegionScannerTest {
+
+	private static final char[] ALPHABET = { 'a', '<', '-', ']', ' ', '\t', '\n', '\r', 0x0B, 0x1C, 0x1F, '!', 'é', 0x2028, 0xFFFD };
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testVectorScannerIsUsedWhenAvailable() throws Exception {
+
+		boolean available;
+		try {
+			Class.forName( "jdk.incubator.vector.ShortVector" );
+			Class.forName( "net.vzurczak.xml.region.analyzer.VectorXmlRegionScanner" );
+			available = true;
+
+		} catch( ClassNotFoundException e ) {
+			available = false;
+		}
+
+		String name = XmlRegionScanner.DEFAULT.getClass().getSimpleName();
+		Assert.assertEquals( name, available ? "VectorXmlRegionScanner" : "XmlRegionScanner" );
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testSameResultsAsTheScalarScanner() throws Exception {
+
+		XmlRegionScanner scalar = new XmlRegionScanner();
+		XmlRegionScanner scanner = XmlRegionScanner.DEFAULT;
+		Random random = new Random( 13 );
+
+		for( int i=0; i<2000; i++ ) {
+
+			// Random arrays, with long runs of the same character
+			char[] chars = new char[ random.nextInt( 300 )];
+			for( int j=0; j<chars.length; ) {
+				char c = ALPHABET[ random.nextInt( ALPHABET.length )];
+				for( int k = random.nextInt( 100 ); k>0 && j<chars.length; k-- )
+					chars[ j ++ ] = c;
+			}
+
+			byte[] bytes = new String( chars ).getBytes( "UTF-8" );
+			int from = chars.length == 0 ? 0 : random.nextInt( chars.length );
+			int to = from + random.nextInt( chars.length - from + 1 );
+			int byteTo = Math.min( bytes.length, to );
+
+			for( char c : new char[] { '<', '-', ']' }) {
+				Assert.assertEquals( scanner.indexOf( chars, from, to, c ), scalar.indexOf( chars, from, to, c ));
+				Assert.assertEquals( scanner.indexOf( bytes, from, byteTo, (byte) c ), scalar.indexOf( bytes, from, byteTo, (byte) c ));
+			}
+
+			Assert.assertEquals( scanner.skipWhitespaces( chars, from, to ), scalar.skipWhitespaces( chars, from, to ));
+			Assert.assertEquals( scanner.skipWhitespaces( bytes, from, byteTo ), scalar.skipWhitespaces( bytes, from, byteTo ));
+		}
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void testAsciiWhitespaces() throws Exception {
+
+		for( char c = 0; c < 128; c ++ )
+			Assert.assertEquals( String.valueOf((int) c ), XmlRegionScanner.isAsciiWhitespace( c ), Character.isWhitespace( c ));
+	}
+}